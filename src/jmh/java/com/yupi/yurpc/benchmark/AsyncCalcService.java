@@ -0,0 +1,25 @@
+package com.yupi.yurpc.benchmark;
+
+import com.yupi.yurpc.example.CalcService;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步算术服务（回环压测的异步模式使用）
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public interface AsyncCalcService extends CalcService {
+
+    /**
+     * 异步计算表达式（消费者代理不阻塞调用线程）
+     *
+     * @param left     左操作数
+     * @param right    右操作数
+     * @param operator 运算符
+     * @return 结果
+     */
+    CompletableFuture<Double> computeAsync(double left, double right, String operator);
+}
@@ -0,0 +1,20 @@
+package com.yupi.yurpc.benchmark;
+
+import com.yupi.yurpc.example.CalcServiceImpl;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步算术服务实现
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class AsyncCalcServiceImpl extends CalcServiceImpl implements AsyncCalcService {
+
+    @Override
+    public CompletableFuture<Double> computeAsync(double left, double right, String operator) {
+        return CompletableFuture.completedFuture(compute(left, right, operator));
+    }
+}
@@ -0,0 +1,25 @@
+package com.yupi.yurpc.benchmark;
+
+import com.yupi.yurpc.example.UserInfo;
+import com.yupi.yurpc.example.UserService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步用户服务（回环压测的异步模式使用）
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public interface AsyncUserService extends UserService {
+
+    /**
+     * 异步获取用户列表（消费者代理不阻塞调用线程）
+     *
+     * @param limit 限制返回数量，<=0 返回全部
+     * @return 用户列表
+     */
+    CompletableFuture<List<UserInfo>> listUsersAsync(int limit);
+}
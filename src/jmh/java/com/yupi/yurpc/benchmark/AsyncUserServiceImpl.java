@@ -0,0 +1,69 @@
+package com.yupi.yurpc.benchmark;
+
+import com.yupi.yurpc.example.UserInfo;
+import com.yupi.yurpc.example.UserService;
+import com.yupi.yurpc.example.UserServiceImpl;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * 异步用户服务实现
+ * UserService 与 AsyncUserService 分别注册、各自实例化，所有实例委托同一个 UserServiceImpl，
+ * 同步方法写入的用户对异步方法可见
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class AsyncUserServiceImpl implements AsyncUserService {
+
+    private static final UserService USER_SERVICE = new UserServiceImpl();
+
+    @Override
+    public CompletableFuture<List<UserInfo>> listUsersAsync(int limit) {
+        return CompletableFuture.completedFuture(USER_SERVICE.listUsers(limit));
+    }
+
+    @Override
+    public String getUserName(Long userId) {
+        return USER_SERVICE.getUserName(userId);
+    }
+
+    @Override
+    public Integer getUserCount() {
+        return USER_SERVICE.getUserCount();
+    }
+
+    @Override
+    public Long createUser(String name, Integer age) {
+        return USER_SERVICE.createUser(name, age);
+    }
+
+    @Override
+    public boolean deleteUser(Long userId) {
+        return USER_SERVICE.deleteUser(userId);
+    }
+
+    @Override
+    public boolean toggleUserActive(Long userId, boolean active) {
+        return USER_SERVICE.toggleUserActive(userId, active);
+    }
+
+    @Override
+    public List<UserInfo> listUsers(int limit) {
+        return USER_SERVICE.listUsers(limit);
+    }
+
+    @Override
+    public Flow.Publisher<UserInfo> streamUsers(int limit) {
+        return USER_SERVICE.streamUsers(limit);
+    }
+
+    @Override
+    public Optional<UserInfo> findUser(Long userId) {
+        return USER_SERVICE.findUser(userId);
+    }
+}
@@ -0,0 +1,95 @@
+package com.yupi.yurpc.benchmark;
+
+import com.yupi.yurpc.constant.RpcConstant;
+import com.yupi.yurpc.example.UserInfo;
+import com.yupi.yurpc.example.UserService;
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.utils.MethodIdUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试使用的典型消息
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class BenchmarkMessages {
+
+    /**
+     * 消息形态
+     */
+    public enum Shape {
+
+        /**
+         * 单个参数的请求，如 getUserName(Long)
+         */
+        SMALL_REQUEST,
+
+        /**
+         * 只携带方法 id 和参数的精简请求
+         */
+        COMPACT_REQUEST,
+
+        /**
+         * 单值响应
+         */
+        SMALL_RESPONSE,
+
+        /**
+         * 列表响应，如 listUsers(100)
+         */
+        LIST_RESPONSE
+    }
+
+    /**
+     * 列表响应的元素个数
+     */
+    private static final int LIST_SIZE = 100;
+
+    /**
+     * 构造指定形态的消息
+     *
+     * @param shape
+     * @return RpcRequest 或 RpcResponse
+     */
+    public static Object create(Shape shape) {
+        switch (shape) {
+            case SMALL_REQUEST:
+                return RpcRequest.builder()
+                        .serviceName(UserService.class.getName())
+                        .methodName("getUserName")
+                        .serviceVersion(RpcConstant.DEFAULT_SERVICE_VERSION)
+                        .parameterTypes(new Class[]{Long.class})
+                        .args(new Object[]{10086L})
+                        .build();
+            case COMPACT_REQUEST:
+                return RpcRequest.builder()
+                        .methodId(MethodIdUtils.getMethodId(UserService.class.getName(), "getUserName", new Class[]{Long.class}))
+                        .args(new Object[]{10086L})
+                        .build();
+            case SMALL_RESPONSE:
+                RpcResponse smallResponse = new RpcResponse();
+                smallResponse.setData("yupi");
+                smallResponse.setDataType(String.class);
+                smallResponse.setMessage("ok");
+                return smallResponse;
+            case LIST_RESPONSE:
+                List<UserInfo> users = new ArrayList<>(LIST_SIZE);
+                for (long i = 0; i < LIST_SIZE; i++) {
+                    users.add(new UserInfo(i, "user-" + i, (int) (18 + i % 40), i % 2 == 0));
+                }
+                RpcResponse listResponse = new RpcResponse();
+                listResponse.setData(users);
+                listResponse.setDataType(List.class);
+                listResponse.setDataGenericType("java.util.List<" + UserInfo.class.getName() + ">");
+                listResponse.setMessage("ok");
+                return listResponse;
+            default:
+                throw new IllegalArgumentException("未知的消息形态：" + shape);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.yupi.yurpc.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.example.CalcService;
+import com.yupi.yurpc.example.UserService;
+import com.yupi.yurpc.model.ServiceMetaInfo;
+import com.yupi.yurpc.proxy.ServiceProxyFactory;
+import com.yupi.yurpc.registry.LocalRegistry;
+import com.yupi.yurpc.registry.Registry;
+import com.yupi.yurpc.registry.RegistryFactory;
+import com.yupi.yurpc.registry.RegistryKeys;
+import com.yupi.yurpc.serializer.SerializerNegotiator;
+import com.yupi.yurpc.server.invoker.ServiceInvokerRegistry;
+import com.yupi.yurpc.server.tcp.VertxTcpClient;
+import com.yupi.yurpc.server.tcp.VertxTcpServer;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 端到端本机回环压测
+ * 进程内启动 TCP 服务提供者（AsyncCalcServiceImpl / AsyncUserServiceImpl，同时注册同步和异步接口），使用内存注册中心，经服务代理发起调用，
+ * 输出吞吐量和 HdrHistogram 延迟分布（p50 / p99 / p999），直方图同时写入 target 目录便于对比
+ * 参数（key=value）：
+ * service=user|calc，mode=sync|async，concurrency=并发数（异步为最大在途请求数），payload=每次返回的用户数，
+ * serializer、compressor、dispatcher 同 RpcConfig，warmup / duration 单位秒
+ * 如：mvn -Pjmh compile exec:exec@loopback -Dloopback.args="serializer=kryo mode=async concurrency=256"
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class LoopbackBenchmark {
+
+    /**
+     * 延迟记录上限（纳秒），超过的值按上限记录
+     */
+    private static final long MAX_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final String service;
+
+    private final boolean async;
+
+    private final int concurrency;
+
+    private final int payload;
+
+    private final Recorder recorder = new Recorder(MAX_LATENCY_NANOS, 3);
+
+    private final LongAdder errorCount = new LongAdder();
+
+    private volatile boolean running = true;
+
+    private AsyncUserService userService;
+
+    private AsyncCalcService calcService;
+
+    private LoopbackBenchmark(Map<String, String> options) {
+        this.service = options.getOrDefault("service", "user");
+        this.async = "async".equals(options.getOrDefault("mode", "sync"));
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        this.payload = Integer.parseInt(options.getOrDefault("payload", "10"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        // 服务实现每次调用都会打日志，压测时关闭以免干扰结果
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        RpcConfig rpcConfig = new RpcConfig();
+        rpcConfig.getRegistryConfig().setRegistry(RegistryKeys.LOCAL);
+        rpcConfig.setServerPort(findFreePort());
+        rpcConfig.setSerializer(options.getOrDefault("serializer", rpcConfig.getSerializer()));
+        rpcConfig.setCompressor(options.getOrDefault("compressor", rpcConfig.getCompressor()));
+        rpcConfig.setDispatcher(options.getOrDefault("dispatcher", rpcConfig.getDispatcher()));
+        rpcConfig.getTelemetry().setEnabled(false);
+        RpcApplication.init(rpcConfig);
+        startProvider(rpcConfig);
+
+        LoopbackBenchmark benchmark = new LoopbackBenchmark(options);
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int exitCode = 0;
+        try {
+            benchmark.run(warmupSeconds, durationSeconds, rpcConfig);
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            VertxTcpClient.destroy();
+        }
+        // 进程内的服务端 Vert.x 线程不会自行退出
+        System.exit(exitCode);
+    }
+
+    private void run(int warmupSeconds, int durationSeconds, RpcConfig rpcConfig) throws Exception {
+        userService = ServiceProxyFactory.getProxy(AsyncUserService.class);
+        calcService = ServiceProxyFactory.getProxy(AsyncCalcService.class);
+        // 准备足够的用户，使每次调用返回 payload 条记录
+        if ("user".equals(service)) {
+            for (int i = userService.getUserCount(); i < payload; i++) {
+                userService.createUser("user-" + i, 18 + i % 40);
+            }
+        }
+
+        Thread[] drivers = async ? new Thread[]{new Thread(this::driveAsync, "loopback-async")} : new Thread[concurrency];
+        if (!async) {
+            for (int i = 0; i < concurrency; i++) {
+                drivers[i] = new Thread(this::driveSync, "loopback-sync-" + i);
+            }
+        }
+        for (Thread driver : drivers) {
+            driver.start();
+        }
+
+        // 预热结束后丢弃已记录的数据
+        Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+        recorder.reset();
+        errorCount.reset();
+        long startNanos = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+        Histogram histogram = recorder.getIntervalHistogram();
+        long elapsedNanos = System.nanoTime() - startNanos;
+        running = false;
+        for (Thread driver : drivers) {
+            driver.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        report(histogram, elapsedNanos, rpcConfig);
+    }
+
+    /**
+     * 同步调用：每个线程循环发起阻塞调用
+     */
+    private void driveSync() {
+        while (running) {
+            long startNanos = System.nanoTime();
+            try {
+                if ("user".equals(service)) {
+                    userService.listUsers(payload);
+                } else {
+                    calcService.compute(startNanos, 1, "add");
+                }
+                record(startNanos);
+            } catch (Exception e) {
+                errorCount.increment();
+            }
+        }
+    }
+
+    /**
+     * 异步调用：单线程发起，信号量限制在途请求数
+     */
+    private void driveAsync() {
+        Semaphore inFlight = new Semaphore(concurrency);
+        while (running) {
+            try {
+                if (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long startNanos = System.nanoTime();
+            CompletableFuture<?> future;
+            try {
+                future = "user".equals(service)
+                        ? userService.listUsersAsync(payload)
+                        : calcService.computeAsync(startNanos, 1, "add");
+            } catch (Exception e) {
+                errorCount.increment();
+                inFlight.release();
+                continue;
+            }
+            future.whenComplete((result, e) -> {
+                if (e == null) {
+                    record(startNanos);
+                } else {
+                    errorCount.increment();
+                }
+                inFlight.release();
+            });
+        }
+    }
+
+    private void record(long startNanos) {
+        recorder.recordValue(Math.min(System.nanoTime() - startNanos, MAX_LATENCY_NANOS));
+    }
+
+    private void report(Histogram histogram, long elapsedNanos, RpcConfig rpcConfig) throws IOException {
+        String name = String.format("loopback-%s-%s-%s-%s-c%d-p%d", service, async ? "async" : "sync",
+                rpcConfig.getSerializer(), rpcConfig.getCompressor(), concurrency, payload);
+        double seconds = elapsedNanos / 1e9;
+        PrintStream out = System.out;
+        out.println("==== " + name + " ====");
+        out.printf("requests: %d, errors: %d, throughput: %.1f ops/s%n",
+                histogram.getTotalCount(), errorCount.sum(), histogram.getTotalCount() / seconds);
+        out.printf("latency (us): p50=%.1f p90=%.1f p99=%.1f p999=%.1f max=%.1f%n",
+                histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(90) / 1e3,
+                histogram.getValueAtPercentile(99) / 1e3, histogram.getValueAtPercentile(99.9) / 1e3,
+                histogram.getMaxValue() / 1e3);
+        histogram.outputPercentileDistribution(out, 1000.0);
+
+        // 直方图日志可用 HdrHistogram 工具合并、对比
+        File file = new File("target", name + ".hlog");
+        file.getParentFile().mkdirs();
+        try (PrintStream fileStream = new PrintStream(file)) {
+            HistogramLogWriter writer = new HistogramLogWriter(fileStream);
+            writer.outputLogFormatVersion();
+            writer.outputLegend();
+            writer.outputIntervalHistogram(histogram);
+        }
+        out.println("histogram log: " + file.getPath());
+    }
+
+    /**
+     * 进程内启动服务提供者并注册到内存注册中心
+     *
+     * @param rpcConfig
+     */
+    private static void startProvider(RpcConfig rpcConfig) throws Exception {
+        Registry registry = RegistryFactory.getInstance(rpcConfig.getRegistryConfig().getRegistry());
+        // 代理按声明方法的接口确定服务名，同步方法属于 UserService / CalcService，异步方法属于对应的异步接口
+        Map<Class<?>, Class<?>> services = Map.of(UserService.class, AsyncUserServiceImpl.class,
+                AsyncUserService.class, AsyncUserServiceImpl.class,
+                CalcService.class, AsyncCalcServiceImpl.class,
+                AsyncCalcService.class, AsyncCalcServiceImpl.class);
+        for (Map.Entry<Class<?>, Class<?>> entry : services.entrySet()) {
+            String serviceName = entry.getKey().getName();
+            LocalRegistry.register(serviceName, entry.getValue());
+            ServiceInvokerRegistry.register(serviceName, entry.getValue());
+            ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
+            serviceMetaInfo.setServiceName(serviceName);
+            serviceMetaInfo.setServiceHost(rpcConfig.getServerHost());
+            serviceMetaInfo.setServicePort(rpcConfig.getServerPort());
+            serviceMetaInfo.setMethodIds(ServiceInvokerRegistry.getMethodIds(serviceName));
+            serviceMetaInfo.setSerializers(SerializerNegotiator.getSupportedSerializers(rpcConfig));
+            registry.register(serviceMetaInfo);
+        }
+        new VertxTcpServer().doStart(rpcConfig.getServerPort());
+        waitForPort(rpcConfig.getServerPort());
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("参数格式应为 key=value：" + arg);
+            }
+            options.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+        return options;
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+
+    private static void waitForPort(int port) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            try (Socket ignored = new Socket("localhost", port)) {
+                return;
+            } catch (IOException e) {
+                Thread.sleep(100L);
+            }
+        }
+        throw new IllegalStateException("TCP 服务器未启动，端口：" + port);
+    }
+}
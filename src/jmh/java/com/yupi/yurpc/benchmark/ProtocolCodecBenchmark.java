@@ -0,0 +1,83 @@
+package com.yupi.yurpc.benchmark;
+
+import cn.hutool.core.util.IdUtil;
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.protocol.*;
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 协议编解码基准测试（消息头 + 序列化 + 可选压缩）
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProtocolCodecBenchmark {
+
+    @Param({"jdk", "json", "kryo", "hessian", "protobuf", "binary"})
+    public String serializer;
+
+    @Param({"SMALL_REQUEST", "LIST_RESPONSE"})
+    public BenchmarkMessages.Shape shape;
+
+    @Param({"none", "lz4"})
+    public String compressor;
+
+    @Param({"2048"})
+    public int compressionThreshold;
+
+    private ProtocolMessage<?> protocolMessage;
+
+    private Buffer encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        Object body = BenchmarkMessages.create(shape);
+        ProtocolMessageCompressorEnum compressorEnum = ProtocolMessageCompressorEnum.getEnumByValue(compressor);
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(compressorEnum == ProtocolMessageCompressorEnum.NONE
+                ? ProtocolConstant.PROTOCOL_VERSION : ProtocolConstant.PROTOCOL_VERSION_COMPRESSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.getEnumByValue(serializer).getKey());
+        header.setCompressor((byte) compressorEnum.getKey());
+        header.setType((byte) (body instanceof RpcRequest
+                ? ProtocolMessageTypeEnum.REQUEST : ProtocolMessageTypeEnum.RESPONSE).getKey());
+        header.setStatus((byte) ProtocolMessageStatusEnum.OK.getValue());
+        header.setRequestId(IdUtil.getSnowflakeNextId());
+        protocolMessage = new ProtocolMessage<>(header, body);
+        encoded = ProtocolMessageEncoder.encode(protocolMessage, compressionThreshold);
+    }
+
+    @Benchmark
+    public Buffer encode(MessageBytes messageBytes) throws IOException {
+        Buffer buffer = ProtocolMessageEncoder.encode(protocolMessage, compressionThreshold);
+        messageBytes.bytes += buffer.length();
+        return buffer;
+    }
+
+    @Benchmark
+    public ProtocolMessage<?> decode(MessageBytes messageBytes) throws IOException {
+        messageBytes.bytes += encoded.length();
+        return ProtocolMessageDecoder.decode(encoded);
+    }
+}
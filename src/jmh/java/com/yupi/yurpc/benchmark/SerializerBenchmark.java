@@ -0,0 +1,69 @@
+package com.yupi.yurpc.benchmark;
+
+import com.yupi.yurpc.serializer.Serializer;
+import com.yupi.yurpc.serializer.SerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 序列化器基准测试
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializerBenchmark {
+
+    @Param({"jdk", "json", "kryo", "hessian", "protobuf", "binary"})
+    public String serializer;
+
+    @Param({"SMALL_REQUEST", "COMPACT_REQUEST", "SMALL_RESPONSE", "LIST_RESPONSE"})
+    public BenchmarkMessages.Shape shape;
+
+    private Serializer serializerInstance;
+
+    private Object message;
+
+    private Class<?> messageType;
+
+    private byte[] serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        serializerInstance = SerializerFactory.getInstance(serializer);
+        message = BenchmarkMessages.create(shape);
+        messageType = message.getClass();
+        serialized = serializerInstance.serialize(message);
+    }
+
+    @Benchmark
+    public byte[] serialize(MessageBytes messageBytes) throws IOException {
+        byte[] bytes = serializerInstance.serialize(message);
+        messageBytes.bytes += bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public Object deserialize(MessageBytes messageBytes) throws IOException {
+        messageBytes.bytes += serialized.length;
+        return serializerInstance.deserialize(serialized, messageType);
+    }
+}
@@ -5,6 +5,7 @@ import com.yupi.yurpc.config.RpcConfig;
 import com.yupi.yurpc.constant.RpcConstant;
 import com.yupi.yurpc.registry.Registry;
 import com.yupi.yurpc.registry.RegistryFactory;
+import com.yupi.yurpc.server.tcp.VertxTcpClient;
 import com.yupi.yurpc.telemetry.TelemetryManager;
 import com.yupi.yurpc.utils.ConfigUtils;
 import lombok.extern.slf4j.Slf4j;
@@ -40,6 +41,7 @@ public class RpcApplication {
         // 创建并注册 Shutdown Hook，JVM 退出时执行操作
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             registry.destroy();
+            VertxTcpClient.destroy();
             TelemetryManager.shutdown();
         }));
     }
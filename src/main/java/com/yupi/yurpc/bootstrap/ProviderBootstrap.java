@@ -8,6 +8,8 @@ import com.yupi.yurpc.model.ServiceRegisterInfo;
 import com.yupi.yurpc.registry.LocalRegistry;
 import com.yupi.yurpc.registry.Registry;
 import com.yupi.yurpc.registry.RegistryFactory;
+import com.yupi.yurpc.serializer.SerializerNegotiator;
+import com.yupi.yurpc.server.invoker.ServiceInvokerRegistry;
 import com.yupi.yurpc.server.tcp.VertxTcpServer;
 
 import java.util.List;
@@ -35,6 +37,8 @@ public class ProviderBootstrap {
             String serviceName = serviceRegisterInfo.getServiceName();
             // 本地注册
             LocalRegistry.register(serviceName, serviceRegisterInfo.getImplClass());
+            // 预先解析服务方法，创建单例服务实例
+            ServiceInvokerRegistry.register(serviceName, serviceRegisterInfo.getImplClass());
 
             // 注册服务到注册中心
             RegistryConfig registryConfig = rpcConfig.getRegistryConfig();
@@ -43,6 +47,10 @@ public class ProviderBootstrap {
             serviceMetaInfo.setServiceName(serviceName);
             serviceMetaInfo.setServiceHost(rpcConfig.getServerHost());
             serviceMetaInfo.setServicePort(rpcConfig.getServerPort());
+            // 发布方法 id，消费者据此只携带方法 id 发起调用
+            serviceMetaInfo.setMethodIds(ServiceInvokerRegistry.getMethodIds(serviceName));
+            // 发布支持的序列化器，消费者据此协商
+            serviceMetaInfo.setSerializers(SerializerNegotiator.getSupportedSerializers(rpcConfig));
             try {
                 registry.register(serviceMetaInfo);
             } catch (Exception e) {
@@ -0,0 +1,79 @@
+package com.yupi.yurpc.compressor;
+
+import com.esotericsoftware.kryo.util.Pool;
+import io.airlift.compress.Decompressor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * 基于 aircompressor（纯 Java 实现）的压缩器基类
+ * aircompressor 的压缩器、解压器内部持有哈希表等状态，不是线程安全的，放在有界池中复用
+ * 不依赖 ThreadLocal，虚拟线程下也不会为每个线程创建实例
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public abstract class AirliftCompressor implements Compressor {
+
+    /**
+     * 池中最多保留的对象数，超出的归还对象直接丢弃
+     */
+    private static final int POOL_MAX_CAPACITY = 64;
+
+    private final Pool<io.airlift.compress.Compressor> compressorPool;
+
+    private final Pool<Decompressor> decompressorPool;
+
+    protected AirliftCompressor(Supplier<io.airlift.compress.Compressor> compressorSupplier,
+                                Supplier<Decompressor> decompressorSupplier) {
+        this.compressorPool = new Pool<>(true, false, POOL_MAX_CAPACITY) {
+            @Override
+            protected io.airlift.compress.Compressor create() {
+                return compressorSupplier.get();
+            }
+        };
+        this.decompressorPool = new Pool<>(true, false, POOL_MAX_CAPACITY) {
+            @Override
+            protected Decompressor create() {
+                return decompressorSupplier.get();
+            }
+        };
+    }
+
+    @Override
+    public byte[] compress(byte[] bytes, int offset, int length) {
+        io.airlift.compress.Compressor compressor = compressorPool.obtain();
+        try {
+            byte[] output = new byte[compressor.maxCompressedLength(length)];
+            int compressedLength = compressor.compress(bytes, offset, length, output, 0, output.length);
+            return Arrays.copyOf(output, compressedLength);
+        } finally {
+            compressorPool.free(compressor);
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes, int offset, int length, int originalLength) throws IOException {
+        if (originalLength < 0) {
+            throw new IOException("原始数据长度非法：" + originalLength);
+        }
+        byte[] output = new byte[originalLength];
+        Decompressor decompressor = decompressorPool.obtain();
+        int decompressedLength;
+        try {
+            decompressedLength = decompressor.decompress(bytes, offset, length, output, 0, originalLength);
+        } catch (RuntimeException e) {
+            // 数据损坏时 aircompressor 抛出 MalformedInputException
+            throw new IOException("解压失败", e);
+        } finally {
+            decompressorPool.free(decompressor);
+        }
+        if (decompressedLength != originalLength) {
+            throw new IOException("解压后的数据长度与原始长度不一致");
+        }
+        return output;
+    }
+}
@@ -0,0 +1,36 @@
+package com.yupi.yurpc.compressor;
+
+import java.io.IOException;
+
+/**
+ * 压缩器接口
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public interface Compressor {
+
+    /**
+     * 压缩
+     *
+     * @param bytes  原始数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @return 压缩后的数据
+     * @throws IOException
+     */
+    byte[] compress(byte[] bytes, int offset, int length) throws IOException;
+
+    /**
+     * 解压
+     *
+     * @param bytes          压缩数据
+     * @param offset         起始位置
+     * @param length         长度
+     * @param originalLength 原始数据长度
+     * @return 原始数据
+     * @throws IOException
+     */
+    byte[] decompress(byte[] bytes, int offset, int length, int originalLength) throws IOException;
+}
@@ -0,0 +1,28 @@
+package com.yupi.yurpc.compressor;
+
+import com.yupi.yurpc.spi.SpiLoader;
+
+/**
+ * 压缩器工厂（工厂模式，用于获取压缩器对象）
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class CompressorFactory {
+
+    static {
+        SpiLoader.load(Compressor.class);
+    }
+
+    /**
+     * 获取实例
+     *
+     * @param key
+     * @return
+     */
+    public static Compressor getInstance(String key) {
+        return SpiLoader.getInstance(Compressor.class, key);
+    }
+
+}
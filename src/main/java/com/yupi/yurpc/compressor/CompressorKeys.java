@@ -0,0 +1,21 @@
+package com.yupi.yurpc.compressor;
+
+/**
+ * 压缩器键名常量
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public interface CompressorKeys {
+
+    /**
+     * 不压缩
+     */
+    String NONE = "none";
+    String GZIP = "gzip";
+    String LZ4 = "lz4";
+    String SNAPPY = "snappy";
+    String ZSTD = "zstd";
+
+}
@@ -0,0 +1,40 @@
+package com.yupi.yurpc.compressor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip 压缩器（JDK 内置实现）
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class GzipCompressor implements Compressor {
+
+    @Override
+    public byte[] compress(byte[] bytes, int offset, int length) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(64, length / 2));
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(bytes, offset, length);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes, int offset, int length, int originalLength) throws IOException {
+        if (originalLength < 0) {
+            throw new IOException("原始数据长度非法：" + originalLength);
+        }
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(bytes, offset, length))) {
+            byte[] result = gzipInputStream.readNBytes(originalLength);
+            if (result.length != originalLength) {
+                throw new IOException("解压后的数据长度与原始长度不一致");
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.yupi.yurpc.compressor;
+
+/**
+ * LZ4 压缩器
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class Lz4Compressor extends AirliftCompressor {
+
+    public Lz4Compressor() {
+        super(io.airlift.compress.lz4.Lz4Compressor::new, io.airlift.compress.lz4.Lz4Decompressor::new);
+    }
+}
@@ -0,0 +1,15 @@
+package com.yupi.yurpc.compressor;
+
+/**
+ * Snappy 压缩器
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class SnappyCompressor extends AirliftCompressor {
+
+    public SnappyCompressor() {
+        super(io.airlift.compress.snappy.SnappyCompressor::new, io.airlift.compress.snappy.SnappyDecompressor::new);
+    }
+}
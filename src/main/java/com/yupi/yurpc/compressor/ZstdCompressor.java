@@ -0,0 +1,15 @@
+package com.yupi.yurpc.compressor;
+
+/**
+ * Zstd 压缩器
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class ZstdCompressor extends AirliftCompressor {
+
+    public ZstdCompressor() {
+        super(io.airlift.compress.zstd.ZstdCompressor::new, io.airlift.compress.zstd.ZstdDecompressor::new);
+    }
+}
@@ -1,9 +1,11 @@
 package com.yupi.yurpc.config;
 
+import com.yupi.yurpc.compressor.CompressorKeys;
 import com.yupi.yurpc.fault.retry.RetryStrategyKeys;
 import com.yupi.yurpc.fault.tolerant.TolerantStrategyKeys;
 import com.yupi.yurpc.loadbalancer.LoadBalancerKeys;
 import com.yupi.yurpc.serializer.SerializerKeys;
+import com.yupi.yurpc.server.dispatcher.DispatcherKeys;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -43,6 +45,38 @@ public class RpcConfig {
      */
     private String serializer = SerializerKeys.JDK;
 
+    /**
+     * 支持的序列化器（逗号分隔，按优先级排序），服务提供者发布该列表，消费者据此为每个服务协商出共同支持的序列化器
+     * 为空时只使用全局序列化器
+     */
+    private String serializers = "";
+
+    /**
+     * 按服务、方法指定序列化器（逗号分隔），格式：服务名=序列化器,服务名#方法名=序列化器，方法级优先
+     */
+    private String serializerOverrides = "";
+
+    /**
+     * Kryo 预先注册的业务类（全限定类名，逗号分隔），服务提供者和消费者的配置需保持一致
+     */
+    private String kryoRegisteredClasses = "";
+
+    /**
+     * Kryo 是否预先注册内置类（RPC 模型类和常用 JDK 类型），消息中只写注册 id
+     * 开启后与未开启的节点互相无法解析 Kryo 消息，需在所有提供者和消费者升级后统一开启
+     */
+    private boolean kryoBuiltinRegistration = false;
+
+    /**
+     * 压缩器（TCP 协议），服务提供者按请求使用的压缩器压缩响应
+     */
+    private String compressor = CompressorKeys.NONE;
+
+    /**
+     * 压缩阈值（单位字节），序列化后的消息体不小于该值时才压缩
+     */
+    private int compressionThreshold = 2048;
+
     /**
      * 负载均衡器
      */
@@ -58,6 +92,11 @@ public class RpcConfig {
      */
     private String tolerantStrategy = TolerantStrategyKeys.FAIL_FAST;
 
+    /**
+     * 服务端请求分发器
+     */
+    private String dispatcher = DispatcherKeys.EVENT_LOOP;
+
     /**
      * 模拟调用
      */
@@ -68,6 +107,11 @@ public class RpcConfig {
      */
     private RegistryConfig registryConfig = new RegistryConfig();
 
+    /**
+     * TCP 传输配置
+     */
+    private TcpConfig tcp = new TcpConfig();
+
     /**
      * 可观测性配置
      */
@@ -0,0 +1,101 @@
+package com.yupi.yurpc.config;
+
+import lombok.Data;
+
+/**
+ * TCP 传输配置
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+@Data
+public class TcpConfig {
+
+    /**
+     * 每个服务提供者保持的长连接数（每个连接可并发承载多个请求）
+     */
+    private int connectionsPerProvider = 1;
+
+    /**
+     * 建立连接超时时间（单位毫秒）
+     */
+    private int connectTimeout = 3000;
+
+    /**
+     * 请求超时时间（单位毫秒）
+     */
+    private long requestTimeout = 5000L;
+
+    /**
+     * 是否开启写合并（同一事件循环周期内的消息合并后一次写出）
+     */
+    private boolean writeBatchEnabled = true;
+
+    /**
+     * 单次合并写出的最大字节数
+     */
+    private int writeBatchMaxBytes = 64 * 1024;
+
+    /**
+     * 单帧 body 的最大字节数，超过时视为非法帧并关闭连接（防止恶意长度字段导致超大内存分配）
+     */
+    private int maxFrameLength = 16 * 1024 * 1024;
+
+    /**
+     * 客户端心跳间隔（单位毫秒），小于等于 0 时不发送心跳
+     */
+    private long heartbeatInterval = 15000L;
+
+    /**
+     * 连接读空闲超时时间（单位毫秒），超时未收到任何数据即关闭连接，小于等于 0 时不检测
+     * 应大于心跳间隔的 2 倍，避免偶发的心跳延迟导致误判
+     */
+    private long idleTimeout = 45000L;
+
+    /**
+     * 连接池空闲时间（单位毫秒），超过该时间未被使用的服务提供者连接池会被驱逐并关闭连接，小于等于 0 时不驱逐
+     * 下线的服务提供者不会再被选中，其连接池随之空闲并被回收
+     */
+    private long poolIdleTimeout = 300000L;
+
+    /**
+     * 工作线程数（分发器为 workerPool 时生效）
+     */
+    private int workerThreads = 200;
+
+    /**
+     * 工作线程池队列容量，队列满时拒绝请求（分发器为 workerPool 时生效）
+     */
+    private int workerQueueCapacity = 1024;
+
+    /**
+     * 服务端 Verticle 实例数（每个实例独占一个事件循环并共享监听端口），小于等于 0 时为 CPU 核数
+     */
+    private int serverInstances = 0;
+
+    /**
+     * 是否优先使用原生传输（Linux epoll），不可用时自动回退到 NIO
+     */
+    private boolean nativeTransport = false;
+
+    /**
+     * 是否开启 SO_REUSEPORT（需要原生传输），由内核在多个监听套接字之间分配连接
+     */
+    private boolean reusePort = false;
+
+    /**
+     * 是否开启 TCP_NODELAY
+     */
+    private boolean tcpNoDelay = true;
+
+    /**
+     * 套接字发送缓冲区大小（单位字节），小于等于 0 时使用系统默认值
+     */
+    private int sendBufferSize = -1;
+
+    /**
+     * 套接字接收缓冲区大小（单位字节），小于等于 0 时使用系统默认值
+     */
+    private int receiveBufferSize = -1;
+}
@@ -1,5 +1,9 @@
 package com.yupi.yurpc.example;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Flow;
+
 /**
  * 用户服务接口（示例）
  *
@@ -56,7 +60,15 @@ public interface UserService {
      * @param limit 限制返回数量，<=0 返回全部
      * @return 用户列表
      */
-    java.util.List<UserInfo> listUsers(int limit);
+    List<UserInfo> listUsers(int limit);
+
+    /**
+     * 流式获取用户列表（按消费者的请求逐个读取并发送，不预先生成完整列表，适合大结果集）
+     *
+     * @param limit 限制返回数量，<=0 返回全部
+     * @return 用户流
+     */
+    Flow.Publisher<UserInfo> streamUsers(int limit);
 
     /**
      * 查找用户
@@ -64,6 +76,6 @@ public interface UserService {
      * @param userId 用户 ID
      * @return 用户信息（如果存在）
      */
-    java.util.Optional<UserInfo> findUser(Long userId);
+    Optional<UserInfo> findUser(Long userId);
 }
 
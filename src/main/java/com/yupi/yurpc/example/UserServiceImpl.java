@@ -1,13 +1,13 @@
 package com.yupi.yurpc.example;
 
+import com.yupi.yurpc.utils.IteratorPublisher;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -20,12 +20,13 @@ import java.util.concurrent.atomic.AtomicLong;
 @Slf4j
 public class UserServiceImpl implements UserService {
 
-    private final Map<Long, UserInfo> userStore = new ConcurrentHashMap<>();
+    /**
+     * 用户存储，按用户 ID 有序，可按顺序逐个遍历
+     */
+    private final ConcurrentSkipListMap<Long, UserInfo> userStore = new ConcurrentSkipListMap<>();
 
     private final AtomicLong idGenerator = new AtomicLong(1000L);
 
-    private static final Comparator<UserInfo> USER_ORDER = Comparator.comparing(UserInfo::getUserId);
-
     public UserServiceImpl() {
         // 初始化一些示例数据
         createUser("Alice", 26);
@@ -77,14 +78,24 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public List<UserInfo> listUsers(int limit) {
-        List<UserInfo> result = new ArrayList<>(userStore.values());
-        result.sort(USER_ORDER);
-        if (limit > 0 && limit < result.size()) {
-            return new ArrayList<>(result.subList(0, limit));
+        List<UserInfo> result = new ArrayList<>();
+        for (UserInfo userInfo : userStore.values()) {
+            if (limit > 0 && result.size() >= limit) {
+                break;
+            }
+            result.add(userInfo);
         }
         return result;
     }
 
+    @Override
+    public Flow.Publisher<UserInfo> streamUsers(int limit) {
+        // 每次订阅遍历一次存储，元素在消费者请求时才读取
+        return new IteratorPublisher<>(() -> userStore.values().stream()
+                .limit(limit > 0 ? limit : Long.MAX_VALUE)
+                .iterator());
+    }
+
     @Override
     public Optional<UserInfo> findUser(Long userId) {
         return Optional.ofNullable(userStore.get(userId));
@@ -0,0 +1,16 @@
+package com.yupi.yurpc.exception;
+
+/**
+ * 服务提供者无法识别请求中的方法 id（如注册信息已过期），调用方应改为携带完整方法签名重新请求
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">鱼皮的编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航学习圈</a>
+ */
+public class MethodIdNotFoundException extends RpcException {
+
+    public MethodIdNotFoundException(String message) {
+        super(message);
+    }
+
+}
@@ -5,6 +5,7 @@ import com.yupi.yurpc.model.ServiceMetaInfo;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 一致性哈希负载均衡器
@@ -16,9 +17,11 @@ import java.util.TreeMap;
 public class ConsistentHashLoadBalancer implements LoadBalancer {
 
     /**
-     * 一致性 Hash 环，存放虚拟节点
+     * 服务键 => 最近一次构建的 Hash 环
+     * 注册中心缓存的服务列表是不可变快照，列表对象不变时直接复用，节点变更后才重新构建；
+     * 按服务分别缓存，交替调用多个服务时不会互相覆盖
      */
-    private final TreeMap<Integer, ServiceMetaInfo> virtualNodes = new TreeMap<>();
+    private final Map<String, HashRing> hashRingMap = new ConcurrentHashMap<>();
 
     /**
      * 虚拟节点数
@@ -32,12 +35,13 @@ public class ConsistentHashLoadBalancer implements LoadBalancer {
         }
 
         // 构建虚拟节点环
-        for (ServiceMetaInfo serviceMetaInfo : serviceMetaInfoList) {
-            for (int i = 0; i < VIRTUAL_NODE_NUM; i++) {
-                int hash = getHash(serviceMetaInfo.getServiceAddress() + "#" + i);
-                virtualNodes.put(hash, serviceMetaInfo);
-            }
+        String serviceKey = serviceMetaInfoList.get(0).getServiceKey();
+        HashRing currentHashRing = hashRingMap.get(serviceKey);
+        if (currentHashRing == null || currentHashRing.serviceMetaInfoList != serviceMetaInfoList) {
+            currentHashRing = new HashRing(serviceMetaInfoList);
+            hashRingMap.put(serviceKey, currentHashRing);
         }
+        TreeMap<Integer, ServiceMetaInfo> virtualNodes = currentHashRing.virtualNodes;
 
         // 获取调用请求的 hash 值
         int hash = getHash(requestParams);
@@ -61,4 +65,27 @@ public class ConsistentHashLoadBalancer implements LoadBalancer {
     private int getHash(Object key) {
         return key.hashCode();
     }
+
+    /**
+     * 一致性 Hash 环（构建后只读）
+     */
+    private class HashRing {
+
+        private final List<ServiceMetaInfo> serviceMetaInfoList;
+
+        /**
+         * 虚拟节点
+         */
+        private final TreeMap<Integer, ServiceMetaInfo> virtualNodes = new TreeMap<>();
+
+        private HashRing(List<ServiceMetaInfo> serviceMetaInfoList) {
+            this.serviceMetaInfoList = serviceMetaInfoList;
+            for (ServiceMetaInfo serviceMetaInfo : serviceMetaInfoList) {
+                for (int i = 0; i < VIRTUAL_NODE_NUM; i++) {
+                    int hash = getHash(serviceMetaInfo.getServiceAddress() + "#" + i);
+                    virtualNodes.put(hash, serviceMetaInfo);
+                }
+            }
+        }
+    }
 }
@@ -21,6 +21,11 @@ import java.io.Serializable;
 @NoArgsConstructor
 public class RpcRequest implements Serializable {
 
+    /**
+     * 固定为新增方法 id 字段之前自动计算的值，保持与未升级节点的 JDK 序列化兼容
+     */
+    private static final long serialVersionUID = -6683391126719412376L;
+
     /**
      * 服务名称
      */
@@ -46,4 +51,10 @@ public class RpcRequest implements Serializable {
      */
     private Object[] args;
 
+    /**
+     * 方法 id（为 0 表示未使用）
+     * 服务提供者发布了该 id 时，请求只携带方法 id 和参数，省去服务名、方法名和参数类型
+     */
+    private int methodId;
+
 }
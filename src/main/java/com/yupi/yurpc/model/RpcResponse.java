@@ -20,6 +20,11 @@ import java.io.Serializable;
 @NoArgsConstructor
 public class RpcResponse implements Serializable {
 
+    /**
+     * 固定为新增泛型类型字段之前自动计算的值，保持与未升级节点的 JDK 序列化兼容
+     */
+    private static final long serialVersionUID = -1499934161759573476L;
+
     /**
      * 响应数据
      */
@@ -30,6 +35,12 @@ public class RpcResponse implements Serializable {
      */
     private Class<?> dataType;
 
+    /**
+     * 响应数据的泛型类型（规范化类型名，如 java.util.List<com.yupi.yurpc.example.UserInfo>）
+     * 仅当服务方法的返回值为泛型类型时设置，供 JSON 等不携带类型信息的序列化器还原元素类型
+     */
+    private String dataGenericType;
+
     /**
      * 响应信息
      */
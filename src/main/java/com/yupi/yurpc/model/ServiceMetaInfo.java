@@ -4,6 +4,8 @@ import cn.hutool.core.util.StrUtil;
 import com.yupi.yurpc.constant.RpcConstant;
 import lombok.Data;
 
+import java.util.List;
+
 /**
  * 服务元信息（注册信息）
  *
@@ -39,6 +41,34 @@ public class ServiceMetaInfo {
      */
     private String serviceGroup = "default";
 
+    /**
+     * 服务提供者可识别的方法 id 列表
+     */
+    private List<Integer> methodIds;
+
+    /**
+     * 服务提供者支持的序列化器（按优先级排序），为空表示未发布（旧版本提供者）
+     */
+    private List<String> serializers;
+
+    /**
+     * 服务提供者是否可识别指定的方法 id
+     *
+     * @param methodId
+     * @return
+     */
+    public boolean supportsMethodId(int methodId) {
+        if (methodIds == null) {
+            return false;
+        }
+        for (Integer id : methodIds) {
+            if (id != null && id == methodId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * 获取服务键名
      *
@@ -47,7 +77,7 @@ public class ServiceMetaInfo {
     public String getServiceKey() {
         // 后续可扩展服务分组
 //        return String.format("%s:%s:%s", serviceName, serviceVersion, serviceGroup);
-        return String.format("%s:%s", serviceName, serviceVersion);
+        return serviceName + ":" + serviceVersion;
     }
 
     /**
@@ -56,7 +86,7 @@ public class ServiceMetaInfo {
      * @return
      */
     public String getServiceNodeKey() {
-        return String.format("%s/%s:%s", getServiceKey(), serviceHost, servicePort);
+        return getServiceKey() + "/" + serviceHost + ":" + servicePort;
     }
 
     /**
@@ -66,8 +96,8 @@ public class ServiceMetaInfo {
      */
     public String getServiceAddress() {
         if (!StrUtil.contains(serviceHost, "http")) {
-            return String.format("http://%s:%s", serviceHost, servicePort);
+            return "http://" + serviceHost + ":" + servicePort;
         }
-        return String.format("%s:%s", serviceHost, servicePort);
+        return serviceHost + ":" + servicePort;
     }
 }
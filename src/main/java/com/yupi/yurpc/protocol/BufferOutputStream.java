@@ -0,0 +1,32 @@
+package com.yupi.yurpc.protocol;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.io.OutputStream;
+
+/**
+ * 基于 Vert.x Buffer 的输出流
+ * 序列化器写出的字节直接追加到目标 Buffer，省去中间字节数组及其拷贝
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @from <a href="https://yupi.icu">编程导航学习圈</a>
+ * @learn <a href="https://codefather.cn">鱼皮的编程宝典</a>
+ */
+public class BufferOutputStream extends OutputStream {
+
+    private final Buffer buffer;
+
+    public BufferOutputStream(Buffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) {
+        buffer.appendByte((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        buffer.appendBytes(bytes, offset, length);
+    }
+}
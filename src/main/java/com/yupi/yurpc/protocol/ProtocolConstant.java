@@ -23,4 +23,15 @@ public interface ProtocolConstant {
      * 协议版本号
      */
     byte PROTOCOL_VERSION = 0x1;
+
+    /**
+     * 支持消息体压缩的协议版本号
+     * 序列化器字节的高 4 位为压缩器，压缩的消息体以 4 字节原始长度开头（-1 表示该消息未压缩）
+     */
+    byte PROTOCOL_VERSION_COMPRESSION = 0x2;
+
+    /**
+     * 未压缩消息体的原始长度标记
+     */
+    int UNCOMPRESSED_LENGTH = -1;
 }
@@ -47,6 +47,11 @@ public class ProtocolMessage<T> {
          */
         private byte serializer;
 
+        /**
+         * 压缩器（协议版本 2 起与序列化器共用一个字节，请求方指定，响应沿用请求的压缩器）
+         */
+        private byte compressor;
+
         /**
          * 消息类型（请求 / 响应）
          */
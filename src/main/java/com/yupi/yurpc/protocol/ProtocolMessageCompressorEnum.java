@@ -0,0 +1,64 @@
+package com.yupi.yurpc.protocol;
+
+import cn.hutool.core.util.ObjectUtil;
+import lombok.Getter;
+
+/**
+ * 协议消息的压缩器枚举
+ * key 占用序列化器字节的高 4 位，取值范围 0 ~ 15
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @from <a href="https://yupi.icu">编程导航学习圈</a>
+ * @learn <a href="https://codefather.cn">鱼皮的编程宝典</a>
+ */
+@Getter
+public enum ProtocolMessageCompressorEnum {
+
+    NONE(0, "none"),
+    GZIP(1, "gzip"),
+    LZ4(2, "lz4"),
+    SNAPPY(3, "snappy"),
+    ZSTD(4, "zstd");
+
+    private final int key;
+
+    private final String value;
+
+    ProtocolMessageCompressorEnum(int key, String value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    /**
+     * 根据 key 获取枚举
+     *
+     * @param key
+     * @return
+     */
+    public static ProtocolMessageCompressorEnum getEnumByKey(int key) {
+        for (ProtocolMessageCompressorEnum anEnum : ProtocolMessageCompressorEnum.values()) {
+            if (anEnum.key == key) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static ProtocolMessageCompressorEnum getEnumByValue(String value) {
+        if (ObjectUtil.isEmpty(value)) {
+            return null;
+        }
+        for (ProtocolMessageCompressorEnum anEnum : ProtocolMessageCompressorEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
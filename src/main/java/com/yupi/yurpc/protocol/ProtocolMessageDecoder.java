@@ -1,12 +1,18 @@
 package com.yupi.yurpc.protocol;
 
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.compressor.CompressorFactory;
 import com.yupi.yurpc.model.RpcRequest;
 import com.yupi.yurpc.model.RpcResponse;
 import com.yupi.yurpc.serializer.Serializer;
 import com.yupi.yurpc.serializer.SerializerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.vertx.core.buffer.Buffer;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * 协议消息解码器
@@ -25,6 +31,18 @@ public class ProtocolMessageDecoder {
      * @throws IOException
      */
     public static ProtocolMessage<?> decode(Buffer buffer) throws IOException {
+        return decode(buffer, RpcApplication.getRpcConfig().getTcp().getMaxFrameLength());
+    }
+
+    /**
+     * 解码
+     *
+     * @param buffer
+     * @param maxBodySize 解压后消息体的最大字节数
+     * @return
+     * @throws IOException
+     */
+    public static ProtocolMessage<?> decode(Buffer buffer, int maxBodySize) throws IOException {
         // 分别从指定位置读出 Buffer
         ProtocolMessage.Header header = new ProtocolMessage.Header();
         byte magic = buffer.getByte(0);
@@ -34,13 +52,18 @@ public class ProtocolMessageDecoder {
         }
         header.setMagic(magic);
         header.setVersion(buffer.getByte(1));
-        header.setSerializer(buffer.getByte(2));
+        byte serializerByte = buffer.getByte(2);
+        if (header.getVersion() >= ProtocolConstant.PROTOCOL_VERSION_COMPRESSION) {
+            // 高 4 位为压缩器，低 4 位为序列化器
+            header.setCompressor((byte) (serializerByte >> 4 & 0x0F));
+            header.setSerializer((byte) (serializerByte & 0x0F));
+        } else {
+            header.setSerializer(serializerByte);
+        }
         header.setType(buffer.getByte(3));
         header.setStatus(buffer.getByte(4));
         header.setRequestId(buffer.getLong(5));
         header.setBodyLength(buffer.getInt(13));
-        // 解决粘包问题，只读指定长度的数据
-        byte[] bodyBytes = buffer.getBytes(17, 17 + header.getBodyLength());
         // 解析消息体
         ProtocolMessageSerializerEnum serializerEnum = ProtocolMessageSerializerEnum.getEnumByKey(header.getSerializer());
         if (serializerEnum == null) {
@@ -53,16 +76,59 @@ public class ProtocolMessageDecoder {
         }
         switch (messageTypeEnum) {
             case REQUEST:
-                RpcRequest request = serializer.deserialize(bodyBytes, RpcRequest.class);
+                RpcRequest request = serializer.deserialize(getBodyInputStream(buffer, header, maxBodySize), RpcRequest.class);
                 return new ProtocolMessage<>(header, request);
             case RESPONSE:
-                RpcResponse response = serializer.deserialize(bodyBytes, RpcResponse.class);
+            case STREAM:
+                RpcResponse response = serializer.deserialize(getBodyInputStream(buffer, header, maxBodySize), RpcResponse.class);
                 return new ProtocolMessage<>(header, response);
+            case STREAM_CREDIT:
+                return new ProtocolMessage<>(header, buffer.getLong(ProtocolConstant.MESSAGE_HEADER_LENGTH));
             case HEART_BEAT:
+                // 心跳消息没有消息体
+                return new ProtocolMessage<>(header, null);
             case OTHERS:
             default:
                 throw new RuntimeException("暂不支持该消息类型");
         }
     }
 
+    /**
+     * 获取消息体输入流（按需解压）
+     *
+     * @param buffer
+     * @param header
+     * @param maxBodySize
+     * @return
+     * @throws IOException
+     */
+    private static InputStream getBodyInputStream(Buffer buffer, ProtocolMessage.Header header, int maxBodySize) throws IOException {
+        int bodyOffset = ProtocolConstant.MESSAGE_HEADER_LENGTH;
+        int bodyLength = header.getBodyLength();
+        if (header.getCompressor() != ProtocolMessageCompressorEnum.NONE.getKey()) {
+            ProtocolMessageCompressorEnum compressorEnum = ProtocolMessageCompressorEnum.getEnumByKey(header.getCompressor());
+            if (compressorEnum == null) {
+                throw new RuntimeException("压缩消息的协议不存在");
+            }
+            if (bodyLength < 4) {
+                throw new IOException("压缩消息体缺少原始长度");
+            }
+            int originalLength = buffer.getInt(bodyOffset);
+            bodyOffset += 4;
+            bodyLength -= 4;
+            if (originalLength != ProtocolConstant.UNCOMPRESSED_LENGTH) {
+                // 原始长度来自对端，解压前校验，防止按非法长度分配内存（解压炸弹）
+                if (originalLength < 0 || originalLength > maxBodySize) {
+                    throw new IOException("消息体原始长度非法：" + originalLength);
+                }
+                byte[] compressed = buffer.getBytes(bodyOffset, bodyOffset + bodyLength);
+                byte[] bytes = CompressorFactory.getInstance(compressorEnum.getValue())
+                        .decompress(compressed, 0, compressed.length, originalLength);
+                return new ByteArrayInputStream(bytes);
+            }
+        }
+        // 解决粘包问题，只读指定长度的数据；直接在底层 ByteBuf 的切片上反序列化，不拷贝出中间数组
+        ByteBuf bodyByteBuf = buffer.getByteBuf().slice(bodyOffset, bodyLength);
+        return new ByteBufInputStream(bodyByteBuf);
+    }
 }
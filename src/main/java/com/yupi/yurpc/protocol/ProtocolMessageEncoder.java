@@ -1,5 +1,8 @@
 package com.yupi.yurpc.protocol;
 
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.compressor.Compressor;
+import com.yupi.yurpc.compressor.CompressorFactory;
 import com.yupi.yurpc.serializer.Serializer;
 import com.yupi.yurpc.serializer.SerializerFactory;
 import io.vertx.core.buffer.Buffer;
@@ -16,22 +19,63 @@ import java.io.IOException;
 public class ProtocolMessageEncoder {
 
     /**
-     * 编码
+     * 消息头中 body 长度字段的偏移量
+     */
+    private static final int BODY_LENGTH_OFFSET = 13;
+
+    /**
+     * 编码缓冲区初始容量，覆盖绝大多数小消息，避免扩容
+     */
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    /**
+     * 开启压缩时消息体的起始位置（消息头 + 4 字节原始长度）
+     */
+    private static final int COMPRESSED_BODY_OFFSET = ProtocolConstant.MESSAGE_HEADER_LENGTH + 4;
+
+    /**
+     * 编码，压缩阈值取全局配置
      *
      * @param protocolMessage
      * @return
      * @throws IOException
      */
     public static Buffer encode(ProtocolMessage<?> protocolMessage) throws IOException {
+        return encode(protocolMessage, RpcApplication.getRpcConfig().getCompressionThreshold());
+    }
+
+    /**
+     * 编码
+     *
+     * @param protocolMessage
+     * @param compressionThreshold 压缩阈值，序列化后的消息体不小于该字节数时才压缩
+     * @return
+     * @throws IOException
+     */
+    public static Buffer encode(ProtocolMessage<?> protocolMessage, int compressionThreshold) throws IOException {
         if (protocolMessage == null || protocolMessage.getHeader() == null) {
             return Buffer.buffer();
         }
         ProtocolMessage.Header header = protocolMessage.getHeader();
+        ProtocolMessageCompressorEnum compressorEnum = ProtocolMessageCompressorEnum.getEnumByKey(header.getCompressor());
+        if (compressorEnum == null) {
+            throw new RuntimeException("压缩协议不存在");
+        }
+        // 心跳消息没有消息体，流控消息体为原始的 8 字节数值，均不经过序列化
+        boolean hasBody = header.getType() != ProtocolMessageTypeEnum.HEART_BEAT.getKey()
+                && header.getType() != ProtocolMessageTypeEnum.STREAM_CREDIT.getKey();
+        boolean compressionEnabled = hasBody && compressorEnum != ProtocolMessageCompressorEnum.NONE;
         // 依次向缓冲区写入字节
-        Buffer buffer = Buffer.buffer();
+        Buffer buffer = Buffer.buffer(INITIAL_BUFFER_SIZE);
         buffer.appendByte(header.getMagic());
-        buffer.appendByte(header.getVersion());
-        buffer.appendByte(header.getSerializer());
+        if (compressionEnabled) {
+            // 压缩器写入序列化器字节的高 4 位
+            buffer.appendByte((byte) Math.max(header.getVersion(), ProtocolConstant.PROTOCOL_VERSION_COMPRESSION));
+            buffer.appendByte((byte) (compressorEnum.getKey() << 4 | header.getSerializer() & 0x0F));
+        } else {
+            buffer.appendByte(header.getVersion());
+            buffer.appendByte(header.getSerializer());
+        }
         buffer.appendByte(header.getType());
         buffer.appendByte(header.getStatus());
         buffer.appendLong(header.getRequestId());
@@ -41,10 +85,42 @@ public class ProtocolMessageEncoder {
             throw new RuntimeException("序列化协议不存在");
         }
         Serializer serializer = SerializerFactory.getInstance(serializerEnum.getValue());
-        byte[] bodyBytes = serializer.serialize(protocolMessage.getBody());
-        // 写入 body 长度和数据
-        buffer.appendInt(bodyBytes.length);
-        buffer.appendBytes(bodyBytes);
+        // 先预留 body 长度，消息体直接序列化到缓冲区，写完后回填长度
+        buffer.appendInt(0);
+        if (compressionEnabled) {
+            // 原始长度同样先预留，默认标记为未压缩
+            buffer.appendInt(ProtocolConstant.UNCOMPRESSED_LENGTH);
+        }
+        if (hasBody) {
+            serializer.serialize(protocolMessage.getBody(), new BufferOutputStream(buffer));
+        } else if (header.getType() == ProtocolMessageTypeEnum.STREAM_CREDIT.getKey()) {
+            buffer.appendLong((Long) protocolMessage.getBody());
+        }
+        if (compressionEnabled && buffer.length() - COMPRESSED_BODY_OFFSET >= compressionThreshold) {
+            buffer = compress(buffer, CompressorFactory.getInstance(compressorEnum.getValue()));
+        }
+        buffer.setInt(BODY_LENGTH_OFFSET, buffer.length() - ProtocolConstant.MESSAGE_HEADER_LENGTH);
         return buffer;
     }
+
+    /**
+     * 压缩消息体，压缩后没有变小则保持原样（未压缩标记）
+     *
+     * @param buffer     已写入完整消息的缓冲区
+     * @param compressor
+     * @return
+     * @throws IOException
+     */
+    private static Buffer compress(Buffer buffer, Compressor compressor) throws IOException {
+        int originalLength = buffer.length() - COMPRESSED_BODY_OFFSET;
+        byte[] compressed = compressor.compress(buffer.getBytes(COMPRESSED_BODY_OFFSET, buffer.length()), 0, originalLength);
+        if (compressed.length >= originalLength) {
+            return buffer;
+        }
+        Buffer compressedBuffer = Buffer.buffer(COMPRESSED_BODY_OFFSET + compressed.length);
+        compressedBuffer.appendBuffer(buffer, 0, ProtocolConstant.MESSAGE_HEADER_LENGTH);
+        compressedBuffer.appendInt(originalLength);
+        compressedBuffer.appendBytes(compressed);
+        return compressedBuffer;
+    }
 }
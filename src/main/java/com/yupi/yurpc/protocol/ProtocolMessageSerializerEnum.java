@@ -20,7 +20,9 @@ public enum ProtocolMessageSerializerEnum {
     JDK(0, "jdk"),
     JSON(1, "json"),
     KRYO(2, "kryo"),
-    HESSIAN(3, "hessian");
+    HESSIAN(3, "hessian"),
+    PROTOBUF(4, "protobuf"),
+    BINARY(5, "binary");
 
     private final int key;
 
@@ -15,7 +15,15 @@ public enum ProtocolMessageTypeEnum {
     REQUEST(0),
     RESPONSE(1),
     HEART_BEAT(2),
-    OTHERS(3);
+    OTHERS(3),
+    /**
+     * 流式响应元素（同一 requestId 下的多帧，最终以 RESPONSE 结束）
+     */
+    STREAM(4),
+    /**
+     * 流控：消息体为 8 字节的请求元素数（消费者 request(n)），<= 0 表示取消
+     */
+    STREAM_CREDIT(5);
 
     private final int key;
 
@@ -0,0 +1,174 @@
+package com.yupi.yurpc.proxy;
+
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.constant.RpcConstant;
+import com.yupi.yurpc.fault.retry.RetryStrategy;
+import com.yupi.yurpc.fault.retry.RetryStrategyFactory;
+import com.yupi.yurpc.fault.tolerant.TolerantStrategy;
+import com.yupi.yurpc.fault.tolerant.TolerantStrategyFactory;
+import com.yupi.yurpc.loadbalancer.LoadBalancer;
+import com.yupi.yurpc.loadbalancer.LoadBalancerFactory;
+import com.yupi.yurpc.model.ServiceMetaInfo;
+import com.yupi.yurpc.registry.Registry;
+import com.yupi.yurpc.registry.RegistryFactory;
+import com.yupi.yurpc.serializer.SerializerNegotiator;
+import com.yupi.yurpc.utils.MethodIdUtils;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+
+/**
+ * 服务调用上下文（每个代理一个）
+ * 创建代理时解析好注册中心、负载均衡器、重试和容错策略，每个方法首次调用时算好服务键、方法 id 等，
+ * 序列化器按提供者发布的列表协商一次后缓存，之后的调用不再查 SPI、不再拼接服务键或配置键，除请求本身外不再分配对象
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+@Getter
+public class ServiceInvocationContext {
+
+    private final Registry registry;
+
+    private final LoadBalancer loadBalancer;
+
+    private final RetryStrategy retryStrategy;
+
+    private final TolerantStrategy tolerantStrategy;
+
+    @Getter(AccessLevel.NONE)
+    private final RpcConfig rpcConfig;
+
+    /**
+     * 方法 => 方法调用上下文
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<Method, MethodContext> methodContextMap = new ConcurrentHashMap<>();
+
+    public ServiceInvocationContext(RpcConfig rpcConfig) {
+        this.rpcConfig = rpcConfig;
+        this.registry = RegistryFactory.getInstance(rpcConfig.getRegistryConfig().getRegistry());
+        this.loadBalancer = LoadBalancerFactory.getInstance(rpcConfig.getLoadBalancer());
+        this.retryStrategy = RetryStrategyFactory.getInstance(rpcConfig.getRetryStrategy());
+        this.tolerantStrategy = TolerantStrategyFactory.getInstance(rpcConfig.getTolerantStrategy());
+    }
+
+    /**
+     * 获取方法调用上下文
+     *
+     * @param method
+     * @return
+     */
+    public MethodContext getMethodContext(Method method) {
+        MethodContext methodContext = methodContextMap.get(method);
+        if (methodContext == null) {
+            methodContext = methodContextMap.computeIfAbsent(method, key -> new MethodContext(key, rpcConfig));
+        }
+        return methodContext;
+    }
+
+    /**
+     * 发现服务提供者（注册中心按服务键缓存了不可变的节点快照，命中时不分配对象）
+     *
+     * @param methodContext
+     * @return
+     */
+    public List<ServiceMetaInfo> discover(MethodContext methodContext) {
+        return registry.serviceDiscovery(methodContext.getServiceKey());
+    }
+
+    /**
+     * 方法调用上下文
+     */
+    @Getter
+    public static class MethodContext {
+
+        /**
+         * 服务名（声明该方法的接口）
+         */
+        private final String serviceName;
+
+        private final String serviceKey;
+
+        private final String methodName;
+
+        /**
+         * 参数类型（只读，各请求共用）
+         */
+        private final Class<?>[] parameterTypes;
+
+        private final int methodId;
+
+        /**
+         * 负载均衡参数：调用方法名（请求路径）
+         */
+        private final Map<String, Object> requestParams;
+
+        /**
+         * 返回值为 CompletableFuture，走异步调用
+         */
+        private final boolean async;
+
+        /**
+         * 返回值为 Flow.Publisher，走流式调用
+         */
+        private final boolean streaming;
+
+        @Getter(AccessLevel.NONE)
+        private final RpcConfig rpcConfig;
+
+        /**
+         * 提供者发布的序列化器列表 => 协商出的序列化器（列表种类很少，通常只有一种）
+         */
+        @Getter(AccessLevel.NONE)
+        private final Map<List<String>, String> negotiatedSerializerMap = new ConcurrentHashMap<>();
+
+        /**
+         * 提供者未发布序列化器（旧版本提供者）时协商出的序列化器
+         */
+        @Getter(AccessLevel.NONE)
+        private final String unpublishedSerializer;
+
+        MethodContext(Method method, RpcConfig rpcConfig) {
+            this.rpcConfig = rpcConfig;
+            this.serviceName = method.getDeclaringClass().getName();
+            ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
+            serviceMetaInfo.setServiceName(serviceName);
+            serviceMetaInfo.setServiceVersion(RpcConstant.DEFAULT_SERVICE_VERSION);
+            this.serviceKey = serviceMetaInfo.getServiceKey();
+            this.methodName = method.getName();
+            this.parameterTypes = method.getParameterTypes();
+            this.methodId = MethodIdUtils.getMethodId(method);
+            this.requestParams = Map.of("methodName", methodName);
+            this.async = CompletableFuture.class.isAssignableFrom(method.getReturnType());
+            this.streaming = Flow.Publisher.class.isAssignableFrom(method.getReturnType());
+            this.unpublishedSerializer = SerializerNegotiator.select(rpcConfig, serviceName, methodName, (List<String>) null);
+        }
+
+        /**
+         * 为选中的服务提供者选择序列化器，同一份序列化器列表只协商一次
+         *
+         * @param serviceMetaInfo
+         * @return 序列化器键名
+         */
+        public String selectSerializer(ServiceMetaInfo serviceMetaInfo) {
+            List<String> providerSerializers = serviceMetaInfo.getSerializers();
+            if (providerSerializers == null) {
+                return unpublishedSerializer;
+            }
+            String serializer = negotiatedSerializerMap.get(providerSerializers);
+            if (serializer == null) {
+                serializer = negotiatedSerializerMap.computeIfAbsent(List.copyOf(providerSerializers),
+                        key -> SerializerNegotiator.select(rpcConfig, serviceName, methodName, key));
+            }
+            return serializer;
+        }
+    }
+}
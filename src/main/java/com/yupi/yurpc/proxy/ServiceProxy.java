@@ -4,19 +4,9 @@ import cn.hutool.core.collection.CollUtil;
 import cn.hutool.http.HttpRequest;
 import cn.hutool.http.HttpResponse;
 import com.yupi.yurpc.RpcApplication;
-import com.yupi.yurpc.config.RpcConfig;
-import com.yupi.yurpc.constant.RpcConstant;
-import com.yupi.yurpc.fault.retry.RetryStrategy;
-import com.yupi.yurpc.fault.retry.RetryStrategyFactory;
-import com.yupi.yurpc.fault.tolerant.TolerantStrategy;
-import com.yupi.yurpc.fault.tolerant.TolerantStrategyFactory;
-import com.yupi.yurpc.loadbalancer.LoadBalancer;
-import com.yupi.yurpc.loadbalancer.LoadBalancerFactory;
 import com.yupi.yurpc.model.RpcRequest;
 import com.yupi.yurpc.model.RpcResponse;
 import com.yupi.yurpc.model.ServiceMetaInfo;
-import com.yupi.yurpc.registry.Registry;
-import com.yupi.yurpc.registry.RegistryFactory;
 import com.yupi.yurpc.serializer.Serializer;
 import com.yupi.yurpc.serializer.SerializerFactory;
 import com.yupi.yurpc.server.tcp.VertxTcpClient;
@@ -26,9 +16,9 @@ import com.yupi.yurpc.telemetry.TelemetryManager;
 import java.io.IOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 服务代理（JDK 动态代理）
@@ -39,6 +29,19 @@ import java.util.Map;
  */
 public class ServiceProxy implements InvocationHandler {
 
+    /**
+     * 调用上下文（创建代理时解析）
+     */
+    private final ServiceInvocationContext invocationContext;
+
+    public ServiceProxy() {
+        this(new ServiceInvocationContext(RpcApplication.getRpcConfig()));
+    }
+
+    public ServiceProxy(ServiceInvocationContext invocationContext) {
+        this.invocationContext = invocationContext;
+    }
+
     /**
      * 调用代理
      *
@@ -47,32 +50,36 @@ public class ServiceProxy implements InvocationHandler {
      */
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        ServiceInvocationContext.MethodContext methodContext = invocationContext.getMethodContext(method);
         // 构造请求
-        String serviceName = method.getDeclaringClass().getName();
+        String serviceName = methodContext.getServiceName();
         RpcRequest rpcRequest = RpcRequest.builder()
                 .serviceName(serviceName)
-                .methodName(method.getName())
-                .parameterTypes(method.getParameterTypes())
+                .methodName(methodContext.getMethodName())
+                .parameterTypes(methodContext.getParameterTypes())
                 .args(args)
+                .methodId(methodContext.getMethodId())
                 .build();
 
         // 从注册中心获取服务提供者请求地址
-        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
-        Registry registry = RegistryFactory.getInstance(rpcConfig.getRegistryConfig().getRegistry());
-        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
-        serviceMetaInfo.setServiceName(serviceName);
-        serviceMetaInfo.setServiceVersion(RpcConstant.DEFAULT_SERVICE_VERSION);
-        List<ServiceMetaInfo> serviceMetaInfoList = registry.serviceDiscovery(serviceMetaInfo.getServiceKey());
+        List<ServiceMetaInfo> serviceMetaInfoList = invocationContext.discover(methodContext);
         if (CollUtil.isEmpty(serviceMetaInfoList)) {
             throw new RuntimeException("暂无服务地址");
         }
 
-        // 负载均衡
-        LoadBalancer loadBalancer = LoadBalancerFactory.getInstance(rpcConfig.getLoadBalancer());
-        // 将调用方法名（请求路径）作为负载均衡参数
-        Map<String, Object> requestParams = new HashMap<>();
-        requestParams.put("methodName", rpcRequest.getMethodName());
-        ServiceMetaInfo selectedServiceMetaInfo = loadBalancer.select(requestParams, serviceMetaInfoList);
+        // 负载均衡，将调用方法名（请求路径）作为负载均衡参数
+        ServiceMetaInfo selectedServiceMetaInfo = invocationContext.getLoadBalancer()
+                .select(methodContext.getRequestParams(), serviceMetaInfoList);
+        // 序列化器按提供者发布的列表协商，结果缓存在方法上下文中
+        String serializer = methodContext.selectSerializer(selectedServiceMetaInfo);
+        // 返回值为 CompletableFuture 的方法走异步调用，不阻塞调用线程
+        if (methodContext.isAsync()) {
+            return invokeAsync(serviceName, method, rpcRequest, selectedServiceMetaInfo, serializer);
+        }
+        // 返回值为 Flow.Publisher 的方法走流式调用，元素按订阅者的请求分批拉取；流一旦开始无法透明重试
+        if (methodContext.isStreaming()) {
+            return VertxTcpClient.doStreamRequest(rpcRequest, selectedServiceMetaInfo, serializer);
+        }
 //            // http 请求
 //            // 指定序列化器
 //            Serializer serializer = SerializerFactory.getInstance(RpcApplication.getRpcConfig().getSerializer());
@@ -82,14 +89,12 @@ public class ServiceProxy implements InvocationHandler {
         // 使用重试机制
         RpcResponse rpcResponse;
         try {
-            RetryStrategy retryStrategy = RetryStrategyFactory.getInstance(rpcConfig.getRetryStrategy());
-            rpcResponse = retryStrategy.doRetry(() ->
-                    invokeWithTelemetry(serviceName, method, rpcRequest, selectedServiceMetaInfo)
+            rpcResponse = invocationContext.getRetryStrategy().doRetry(() ->
+                    invokeWithTelemetry(serviceName, method, rpcRequest, selectedServiceMetaInfo, serializer)
             );
         } catch (Exception e) {
             // 容错机制
-            TolerantStrategy tolerantStrategy = TolerantStrategyFactory.getInstance(rpcConfig.getTolerantStrategy());
-            rpcResponse = tolerantStrategy.doTolerant(null, e);
+            rpcResponse = invocationContext.getTolerantStrategy().doTolerant(null, e);
         }
         return rpcResponse != null ? rpcResponse.getData() : null;
     }
@@ -101,14 +106,15 @@ public class ServiceProxy implements InvocationHandler {
      * @param method
      * @param rpcRequest
      * @param serviceMetaInfo
+     * @param serializer      协商出的序列化器
      * @return
      * @throws Exception
      */
     private RpcResponse invokeWithTelemetry(String serviceName, Method method, RpcRequest rpcRequest,
-                                            ServiceMetaInfo serviceMetaInfo) throws Exception {
+                                            ServiceMetaInfo serviceMetaInfo, String serializer) throws Exception {
         TelemetryContext telemetryContext = TelemetryManager.startClientTelemetry(serviceName, method.getName());
         try {
-            RpcResponse response = VertxTcpClient.doRequest(rpcRequest, serviceMetaInfo);
+            RpcResponse response = VertxTcpClient.doRequest(rpcRequest, serviceMetaInfo, serializer);
             TelemetryManager.finishTelemetry(telemetryContext, true, null);
             return response;
         } catch (Exception e) {
@@ -117,6 +123,34 @@ public class ServiceProxy implements InvocationHandler {
         }
     }
 
+    /**
+     * 发起异步 RPC 请求
+     * 重试策略基于阻塞调用实现，异步调用不做重试，失败时直接交给容错策略处理
+     *
+     * @param serviceName
+     * @param method
+     * @param rpcRequest
+     * @param serviceMetaInfo
+     * @param serializer      协商出的序列化器
+     * @return
+     */
+    private CompletableFuture<Object> invokeAsync(String serviceName, Method method, RpcRequest rpcRequest,
+                                                  ServiceMetaInfo serviceMetaInfo, String serializer) {
+        TelemetryContext telemetryContext = TelemetryManager.startClientTelemetry(serviceName, method.getName());
+        return VertxTcpClient.doRequestAsync(rpcRequest, serviceMetaInfo, serializer)
+                .handle((rpcResponse, e) -> {
+                    TelemetryManager.finishTelemetry(telemetryContext, e == null, e);
+                    if (e == null) {
+                        return rpcResponse;
+                    }
+                    // 容错机制
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    Exception exception = cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+                    return invocationContext.getTolerantStrategy().doTolerant(null, exception);
+                })
+                .thenApply(rpcResponse -> rpcResponse != null ? rpcResponse.getData() : null);
+    }
+
     /**
      * 发送 HTTP 请求
      *
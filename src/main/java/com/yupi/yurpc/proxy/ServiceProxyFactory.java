@@ -28,7 +28,7 @@ public class ServiceProxyFactory {
         return (T) Proxy.newProxyInstance(
                 serviceClass.getClassLoader(),
                 new Class[]{serviceClass},
-                new ServiceProxy());
+                new ServiceProxy(new ServiceInvocationContext(RpcApplication.getRpcConfig())));
     }
 
     /**
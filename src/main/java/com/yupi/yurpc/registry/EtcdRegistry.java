@@ -1,22 +1,29 @@
 package com.yupi.yurpc.registry;
 
-import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.collection.ConcurrentHashSet;
 import cn.hutool.cron.CronUtil;
 import cn.hutool.cron.task.Task;
 import cn.hutool.json.JSONUtil;
 import com.yupi.yurpc.config.RegistryConfig;
 import com.yupi.yurpc.model.ServiceMetaInfo;
 import io.etcd.jetcd.*;
+import io.etcd.jetcd.common.exception.ClosedClientException;
+import io.etcd.jetcd.common.exception.CompactedException;
+import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.lease.LeaseKeepAliveResponse;
 import io.etcd.jetcd.options.GetOption;
 import io.etcd.jetcd.options.PutOption;
+import io.etcd.jetcd.options.WatchOption;
 import io.etcd.jetcd.watch.WatchEvent;
+import io.etcd.jetcd.support.CloseableClient;
+import io.etcd.jetcd.watch.WatchResponse;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -26,6 +33,7 @@ import java.util.stream.Collectors;
  * @from <a href="https://yupi.icu">编程导航学习圈</a>
  * @learn <a href="https://codefather.cn">yupi 的编程宝典</a>
  */
+@Slf4j
 public class EtcdRegistry implements Registry {
 
     private Client client;
@@ -33,25 +41,57 @@ public class EtcdRegistry implements Registry {
     private KV kvClient;
 
     /**
-     * 本机注册的节点 key 集合（用于维护续期）
+     * 本机注册的节点：key => 节点信息（用于租约丢失后重新注册）
      */
-    private final Set<String> localRegisterNodeKeySet = new HashSet<>();
+    private final Map<String, ServiceMetaInfo> localRegisterNodeMap = new ConcurrentHashMap<>();
+
+    /**
+     * 本进程共享的租约 id（0 表示尚未创建或已丢失），访问需持有当前对象锁
+     */
+    private long leaseId;
+
+    /**
+     * 租约续期流
+     */
+    private CloseableClient keepAliveClient;
 
     /**
      * 注册中心服务缓存
      */
-    private final RegistryServiceCache registryServiceCache = new RegistryServiceCache();
+    private final RegistryServiceCache registryServiceCache = new RegistryServiceCache(RegistryKeys.ETCD);
+
+    /**
+     * 正在监听的服务：服务键 => 已应用到缓存的最新版本号
+     * 每个服务只有一个前缀监听，同一服务的所有节点共用
+     */
+    private final Map<String, Long> watchingServiceRevisionMap = new ConcurrentHashMap<>();
+
+    /**
+     * 服务键 => 前缀监听器
+     */
+    private final Map<String, Watch.Watcher> serviceWatcherMap = new ConcurrentHashMap<>();
 
     /**
-     * 正在监听的 key 集合
+     * 服务键 => 上次续接监听时的版本号（避免监听持续失败时反复续接）
      */
-    private final Set<String> watchingKeySet = new ConcurrentHashSet<>();
+    private final Map<String, Long> resumedRevisionMap = new ConcurrentHashMap<>();
+
+    /**
+     * 服务键 => 首次发现锁
+     * 同一服务的首次查询串行执行，保证写入缓存的快照与开始监听的版本号来自同一次查询
+     */
+    private final Map<String, Object> discoveryLockMap = new ConcurrentHashMap<>();
 
     /**
      * 根节点
      */
     private static final String ETCD_ROOT_PATH = "/rpc/";
 
+    /**
+     * 租约有效期（秒）
+     */
+    private static final long LEASE_TTL_SECONDS = 30;
+
     @Override
     public void init(RegistryConfig registryConfig) {
         client = Client.builder()
@@ -64,11 +104,8 @@ public class EtcdRegistry implements Registry {
 
     @Override
     public void register(ServiceMetaInfo serviceMetaInfo) throws Exception {
-        // 创建 Lease 和 KV 客户端
-        Lease leaseClient = client.getLeaseClient();
-
-        // 创建一个 30 秒的租约
-        long leaseId = leaseClient.grant(30).get().getID();
+        // 所有服务节点共用本进程的租约
+        long leaseId = obtainLease();
 
         // 设置要存储的键值对
         String registerKey = ETCD_ROOT_PATH + serviceMetaInfo.getServiceNodeKey();
@@ -79,7 +116,56 @@ public class EtcdRegistry implements Registry {
         PutOption putOption = PutOption.builder().withLeaseId(leaseId).build();
         kvClient.put(key, value, putOption).get();
         // 添加节点信息到本地缓存
-        localRegisterNodeKeySet.add(registerKey);
+        localRegisterNodeMap.put(registerKey, serviceMetaInfo);
+    }
+
+    /**
+     * 获取本进程共享的租约，不存在时创建一个 30 秒的租约，并通过 keepAlive 流持续续期
+     *
+     * @return 租约 id
+     * @throws Exception
+     */
+    private synchronized long obtainLease() throws Exception {
+        if (leaseId != 0) {
+            return leaseId;
+        }
+        Lease leaseClient = client.getLeaseClient();
+        long newLeaseId = leaseClient.grant(LEASE_TTL_SECONDS).get().getID();
+        keepAliveClient = leaseClient.keepAlive(newLeaseId, new StreamObserver<>() {
+            @Override
+            public void onNext(LeaseKeepAliveResponse response) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                onLeaseLost(newLeaseId, throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+                onLeaseLost(newLeaseId, null);
+            }
+        });
+        leaseId = newLeaseId;
+        return leaseId;
+    }
+
+    /**
+     * 租约丢失（过期或续期流终止），关联的节点 key 会随之删除，由心跳任务用新租约重新注册
+     *
+     * @param lostLeaseId
+     * @param throwable
+     */
+    private synchronized void onLeaseLost(long lostLeaseId, Throwable throwable) {
+        if (leaseId != lostLeaseId) {
+            return;
+        }
+        log.warn("etcd lease {} lost, re-register on next heartbeat", lostLeaseId, throwable);
+        leaseId = 0;
+        if (keepAliveClient != null) {
+            keepAliveClient.close();
+            keepAliveClient = null;
+        }
     }
 
     @Override
@@ -87,13 +173,13 @@ public class EtcdRegistry implements Registry {
         String registerKey = ETCD_ROOT_PATH + serviceMetaInfo.getServiceNodeKey();
         kvClient.delete(ByteSequence.from(registerKey, StandardCharsets.UTF_8));
         // 也要从本地缓存移除
-        localRegisterNodeKeySet.remove(registerKey);
+        localRegisterNodeMap.remove(registerKey);
     }
 
     @Override
     public List<ServiceMetaInfo> serviceDiscovery(String serviceKey) {
         // 优先从缓存获取服务
-        List<ServiceMetaInfo> cachedServiceMetaInfoList = registryServiceCache.readCache();
+        List<ServiceMetaInfo> cachedServiceMetaInfoList = registryServiceCache.readCache(serviceKey);
         if (cachedServiceMetaInfoList != null) {
             return cachedServiceMetaInfoList;
         }
@@ -101,26 +187,42 @@ public class EtcdRegistry implements Registry {
         // 前缀搜索，结尾一定要加 '/'
         String searchPrefix = ETCD_ROOT_PATH + serviceKey + "/";
 
+        synchronized (discoveryLockMap.computeIfAbsent(serviceKey, key -> new Object())) {
+            // 等待锁期间其他线程可能已完成查询
+            cachedServiceMetaInfoList = registryServiceCache.peekCache(serviceKey);
+            if (cachedServiceMetaInfoList != null) {
+                return cachedServiceMetaInfoList;
+            }
+            return queryAndWatch(serviceKey, searchPrefix);
+        }
+    }
+
+    /**
+     * 查询服务的全部节点写入缓存，并从查询结果的版本号之后开始监听（调用方需持有该服务的首次发现锁）
+     *
+     * @param serviceKey
+     * @param searchPrefix
+     * @return
+     */
+    private List<ServiceMetaInfo> queryAndWatch(String serviceKey, String searchPrefix) {
         try {
             // 前缀查询
             GetOption getOption = GetOption.builder().isPrefix(true).build();
-            List<KeyValue> keyValues = kvClient.get(
+            GetResponse getResponse = kvClient.get(
                             ByteSequence.from(searchPrefix, StandardCharsets.UTF_8),
                             getOption)
-                    .get()
-                    .getKvs();
+                    .get();
             // 解析服务信息
-            List<ServiceMetaInfo> serviceMetaInfoList = keyValues.stream()
+            List<ServiceMetaInfo> serviceMetaInfoList = getResponse.getKvs().stream()
                     .map(keyValue -> {
-                        String key = keyValue.getKey().toString(StandardCharsets.UTF_8);
-                        // 监听 key 的变化
-                        watch(key);
                         String value = keyValue.getValue().toString(StandardCharsets.UTF_8);
                         return JSONUtil.toBean(value, ServiceMetaInfo.class);
                     })
                     .collect(Collectors.toList());
             // 写入服务缓存
-            registryServiceCache.writeCache(serviceMetaInfoList);
+            registryServiceCache.writeCache(serviceKey, serviceMetaInfoList);
+            // 从查询结果的版本号之后开始监听；首次发现已串行，缓存快照与监听起点来自同一次查询，两者之间的变更不会丢失
+            watchService(serviceKey, getResponse.getHeader().getRevision());
             return serviceMetaInfoList;
         } catch (Exception e) {
             throw new RuntimeException("获取服务列表失败", e);
@@ -129,27 +231,25 @@ public class EtcdRegistry implements Registry {
 
     @Override
     public void heartBeat() {
-        // 10 秒续签一次
+        // 租约由 keepAlive 流续期，这里只检查租约是否丢失，10 秒检查一次
         CronUtil.schedule("*/10 * * * * *", new Task() {
             @Override
             public void execute() {
-                // 遍历本节点所有的 key
-                for (String key : localRegisterNodeKeySet) {
+                synchronized (EtcdRegistry.this) {
+                    if (leaseId != 0 || localRegisterNodeMap.isEmpty()) {
+                        return;
+                    }
+                }
+                // 租约丢失后节点 key 已被删除，用新租约重新注册本节点所有的 key
+                for (Map.Entry<String, ServiceMetaInfo> entry : localRegisterNodeMap.entrySet()) {
                     try {
-                        List<KeyValue> keyValues = kvClient.get(ByteSequence.from(key, StandardCharsets.UTF_8))
-                                .get()
-                                .getKvs();
-                        // 该节点已过期（需要重启节点才能重新注册）
-                        if (CollUtil.isEmpty(keyValues)) {
-                            continue;
-                        }
-                        // 节点未过期，重新注册（相当于续签）
-                        KeyValue keyValue = keyValues.get(0);
-                        String value = keyValue.getValue().toString(StandardCharsets.UTF_8);
-                        ServiceMetaInfo serviceMetaInfo = JSONUtil.toBean(value, ServiceMetaInfo.class);
-                        register(serviceMetaInfo);
+                        register(entry.getValue());
                     } catch (Exception e) {
-                        throw new RuntimeException(key + "续签失败", e);
+                        // 放弃新租约，下次检查时重新申请并重新注册
+                        synchronized (EtcdRegistry.this) {
+                            onLeaseLost(leaseId, e);
+                        }
+                        throw new RuntimeException(entry.getKey() + "重新注册失败", e);
                     }
                 }
             }
@@ -162,38 +262,122 @@ public class EtcdRegistry implements Registry {
 
     /**
      * 监听（消费端）
+     * 按节点所属服务的前缀监听
      *
      * @param serviceNodeKey
      */
     @Override
     public void watch(String serviceNodeKey) {
-        Watch watchClient = client.getWatchClient();
+        int index = serviceNodeKey.lastIndexOf('/');
+        watchService(index > 0 ? serviceNodeKey.substring(0, index) : serviceNodeKey, 0);
+    }
+
+    /**
+     * 监听服务下的所有节点（一个服务一个前缀监听）
+     *
+     * @param serviceKey
+     * @param revision   缓存对应的版本号，监听从下一个版本开始；0 表示从当前版本开始
+     */
+    private void watchService(String serviceKey, long revision) {
         // 之前未被监听，开启监听
-        boolean newWatch = watchingKeySet.add(serviceNodeKey);
-        if (newWatch) {
-            watchClient.watch(ByteSequence.from(serviceNodeKey, StandardCharsets.UTF_8), response -> {
-                for (WatchEvent event : response.getEvents()) {
-                    switch (event.getEventType()) {
-                        // key 删除时触发
-                        case DELETE:
-                            // 清理注册服务缓存
-                            registryServiceCache.clearCache();
-                            break;
-                        case PUT:
-                        default:
-                            break;
-                    }
-                }
-            });
+        if (watchingServiceRevisionMap.putIfAbsent(serviceKey, revision) == null) {
+            startWatch(serviceKey);
         }
     }
 
+    /**
+     * 从已应用的最新版本号之后开启前缀监听
+     * 连接断开时 jetcd 会自动从最后收到的版本号续接；监听被终止时在这里续接，两种情况都不需要重新查询全量节点
+     *
+     * @param serviceKey
+     */
+    private void startWatch(String serviceKey) {
+        Long revision = watchingServiceRevisionMap.get(serviceKey);
+        if (revision == null) {
+            return;
+        }
+        WatchOption.Builder watchOptionBuilder = WatchOption.builder().isPrefix(true);
+        if (revision > 0) {
+            watchOptionBuilder.withRevision(revision + 1);
+        }
+        ByteSequence prefix = ByteSequence.from(ETCD_ROOT_PATH + serviceKey + "/", StandardCharsets.UTF_8);
+        Watch.Watcher watcher = client.getWatchClient().watch(prefix, watchOptionBuilder.build(), Watch.listener(
+                response -> onWatchResponse(serviceKey, response),
+                throwable -> onWatchError(serviceKey, throwable)));
+        serviceWatcherMap.put(serviceKey, watcher);
+    }
+
+    /**
+     * 按版本号顺序把节点变更增量应用到缓存，跳过续接时重复收到的事件
+     *
+     * @param serviceKey
+     * @param response
+     */
+    private void onWatchResponse(String serviceKey, WatchResponse response) {
+        Long appliedRevision = watchingServiceRevisionMap.get(serviceKey);
+        if (appliedRevision == null) {
+            return;
+        }
+        long lastRevision = appliedRevision;
+        for (WatchEvent event : response.getEvents()) {
+            KeyValue keyValue = event.getKeyValue();
+            if (keyValue.getModRevision() <= lastRevision) {
+                continue;
+            }
+            switch (event.getEventType()) {
+                case PUT:
+                    String value = keyValue.getValue().toString(StandardCharsets.UTF_8);
+                    registryServiceCache.putNode(JSONUtil.toBean(value, ServiceMetaInfo.class));
+                    break;
+                case DELETE:
+                    String key = keyValue.getKey().toString(StandardCharsets.UTF_8);
+                    registryServiceCache.removeNode(key.substring(ETCD_ROOT_PATH.length()));
+                    break;
+                default:
+                    break;
+            }
+            lastRevision = keyValue.getModRevision();
+        }
+        long revision = lastRevision;
+        watchingServiceRevisionMap.computeIfPresent(serviceKey, (key, oldRevision) -> Math.max(oldRevision, revision));
+    }
+
+    /**
+     * 监听终止：从最后的版本号续接；版本已被压缩，或上次续接后没有任何进展又失败时，
+     * 丢弃该服务的缓存，下次发现时重新查询
+     *
+     * @param serviceKey
+     * @param throwable
+     */
+    private void onWatchError(String serviceKey, Throwable throwable) {
+        Watch.Watcher watcher = serviceWatcherMap.remove(serviceKey);
+        if (watcher != null) {
+            watcher.close();
+        }
+        if (throwable instanceof ClosedClientException) {
+            return;
+        }
+        Long revision = watchingServiceRevisionMap.get(serviceKey);
+        if (revision == null) {
+            return;
+        }
+        if (throwable instanceof CompactedException || revision.equals(resumedRevisionMap.put(serviceKey, revision))) {
+            log.warn("watch of {} cannot be resumed, drop cache", serviceKey, throwable);
+            watchingServiceRevisionMap.remove(serviceKey);
+            resumedRevisionMap.remove(serviceKey);
+            registryServiceCache.clearCache(serviceKey);
+            return;
+        }
+        log.warn("watch of {} terminated, resume from revision {}", serviceKey, revision, throwable);
+        startWatch(serviceKey);
+    }
+
     @Override
     public void destroy() {
         System.out.println("当前节点下线");
         // 下线节点
         // 遍历本节点所有的 key
-        for (String key : localRegisterNodeKeySet) {
+        for (String key : localRegisterNodeMap.keySet()) {
             try {
                 kvClient.delete(ByteSequence.from(key, StandardCharsets.UTF_8)).get();
             } catch (Exception e) {
@@ -202,6 +386,20 @@ public class EtcdRegistry implements Registry {
         }
 
         // 释放资源
+        synchronized (this) {
+            if (keepAliveClient != null) {
+                keepAliveClient.close();
+                keepAliveClient = null;
+            }
+            if (leaseId != 0) {
+                client.getLeaseClient().revoke(leaseId);
+                leaseId = 0;
+            }
+        }
+        watchingServiceRevisionMap.clear();
+        resumedRevisionMap.clear();
+        serviceWatcherMap.values().forEach(Watch.Watcher::close);
+        serviceWatcherMap.clear();
         if (kvClient != null) {
             kvClient.close();
         }
@@ -4,11 +4,11 @@ import com.yupi.yurpc.config.RegistryConfig;
 import com.yupi.yurpc.model.ServiceMetaInfo;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 基于内存的注册中心实现，适合本地演示或单机开发环境。
@@ -21,7 +21,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class InMemoryRegistry implements Registry {
 
     /**
-     * 服务信息存储，key 为 serviceKey
+     * 服务信息存储，key 为 serviceKey，value 为不可变快照（变更时整体替换）
      */
     private final Map<String, List<ServiceMetaInfo>> registryData = new ConcurrentHashMap<>();
 
@@ -33,8 +33,11 @@ public class InMemoryRegistry implements Registry {
     @Override
     public void register(ServiceMetaInfo serviceMetaInfo) {
         String serviceKey = serviceMetaInfo.getServiceKey();
-        registryData.computeIfAbsent(serviceKey, ignored -> new CopyOnWriteArrayList<>())
-                .add(serviceMetaInfo);
+        registryData.compute(serviceKey, (key, serviceMetaInfos) -> {
+            List<ServiceMetaInfo> newServiceMetaInfos = serviceMetaInfos == null ? new ArrayList<>() : new ArrayList<>(serviceMetaInfos);
+            newServiceMetaInfos.add(serviceMetaInfo);
+            return List.copyOf(newServiceMetaInfos);
+        });
         log.info("service registered in memory: {}", serviceMetaInfo);
     }
 
@@ -42,8 +45,10 @@ public class InMemoryRegistry implements Registry {
     public void unRegister(ServiceMetaInfo serviceMetaInfo) {
         String serviceKey = serviceMetaInfo.getServiceKey();
         registryData.computeIfPresent(serviceKey, (key, serviceMetaInfos) -> {
-            serviceMetaInfos.removeIf(info -> info.getServiceAddress().equals(serviceMetaInfo.getServiceAddress()));
-            return serviceMetaInfos.isEmpty() ? null : serviceMetaInfos;
+            List<ServiceMetaInfo> newServiceMetaInfos = serviceMetaInfos.stream()
+                    .filter(info -> !info.getServiceAddress().equals(serviceMetaInfo.getServiceAddress()))
+                    .toList();
+            return newServiceMetaInfos.isEmpty() ? null : newServiceMetaInfos;
         });
         log.info("service unregistered from memory: {}", serviceMetaInfo);
     }
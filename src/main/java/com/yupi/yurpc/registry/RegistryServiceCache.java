@@ -1,11 +1,18 @@
 package com.yupi.yurpc.registry;
 
 import com.yupi.yurpc.model.ServiceMetaInfo;
+import com.yupi.yurpc.telemetry.TelemetryManager;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 注册中心服务本地缓存
+ * 按服务键缓存服务节点，监听到的节点变更增量更新到对应服务；每个服务的节点列表以不可变快照发布，
+ * 读缓存只有一次 ConcurrentHashMap 查找和一次 volatile 读，不加锁
  *
  * @author <a href="https://github.com/liyupi">coder_yupi</a>
  * @from <a href="https://yupi.icu">编程导航学习圈</a>
@@ -14,33 +21,165 @@ import java.util.List;
 public class RegistryServiceCache {
 
     /**
-     * 服务缓存
+     * 服务缓存：服务键 => 服务节点
      */
-    List<ServiceMetaInfo> serviceCache;
+    private final Map<String, ServiceEntry> serviceCache = new ConcurrentHashMap<>();
 
     /**
-     * 写缓存
+     * 缓存命中次数
+     */
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * 缓存未命中次数
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    public RegistryServiceCache() {
+    }
+
+    /**
+     * 创建缓存并注册命中 / 未命中指标
+     *
+     * @param registry 注册中心名称
+     */
+    public RegistryServiceCache(String registry) {
+        TelemetryManager.registerDiscoveryCacheCounter(registry, "hit", hitCount::sum);
+        TelemetryManager.registerDiscoveryCacheCounter(registry, "miss", missCount::sum);
+    }
+
+    /**
+     * 写缓存（服务发现查询到的完整节点列表）
      *
+     * @param serviceKey
      * @param newServiceCache
-     * @return
      */
-    void writeCache(List<ServiceMetaInfo> newServiceCache) {
-        this.serviceCache = newServiceCache;
+    void writeCache(String serviceKey, List<ServiceMetaInfo> newServiceCache) {
+        ServiceEntry serviceEntry = new ServiceEntry();
+        for (ServiceMetaInfo serviceMetaInfo : newServiceCache) {
+            serviceEntry.nodes.put(serviceMetaInfo.getServiceNodeKey(), serviceMetaInfo);
+        }
+        serviceEntry.publish();
+        // 已有缓存由监听事件保持最新，不覆盖
+        serviceCache.putIfAbsent(serviceKey, serviceEntry);
+    }
+
+    /**
+     * 以推送来的完整节点列表替换服务缓存（注册中心维护了服务的完整视图时使用）
+     *
+     * @param serviceKey
+     * @param serviceMetaInfoList
+     */
+    void refreshCache(String serviceKey, List<ServiceMetaInfo> serviceMetaInfoList) {
+        ServiceEntry serviceEntry = serviceCache.computeIfAbsent(serviceKey, key -> new ServiceEntry());
+        synchronized (serviceEntry) {
+            serviceEntry.nodes.clear();
+            for (ServiceMetaInfo serviceMetaInfo : serviceMetaInfoList) {
+                serviceEntry.nodes.put(serviceMetaInfo.getServiceNodeKey(), serviceMetaInfo);
+            }
+            serviceEntry.publish();
+        }
     }
 
     /**
      * 读缓存
      *
-     * @return
+     * @param serviceKey
+     * @return 未缓存该服务时为 null
+     */
+    List<ServiceMetaInfo> readCache(String serviceKey) {
+        ServiceEntry serviceEntry = serviceCache.get(serviceKey);
+        if (serviceEntry == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return serviceEntry.snapshot;
+    }
+
+    /**
+     * 读缓存，不计入命中 / 未命中指标（加锁后重新检查时使用）
+     *
+     * @param serviceKey
+     * @return 未缓存该服务时为 null
      */
-    List<ServiceMetaInfo> readCache() {
-        return this.serviceCache;
+    List<ServiceMetaInfo> peekCache(String serviceKey) {
+        ServiceEntry serviceEntry = serviceCache.get(serviceKey);
+        return serviceEntry != null ? serviceEntry.snapshot : null;
+    }
+
+    /**
+     * 新增或更新节点（只更新已缓存的服务，未缓存的服务下次发现时会完整查询）
+     *
+     * @param serviceMetaInfo
+     */
+    void putNode(ServiceMetaInfo serviceMetaInfo) {
+        ServiceEntry serviceEntry = serviceCache.get(serviceMetaInfo.getServiceKey());
+        if (serviceEntry == null) {
+            return;
+        }
+        synchronized (serviceEntry) {
+            serviceEntry.nodes.put(serviceMetaInfo.getServiceNodeKey(), serviceMetaInfo);
+            serviceEntry.publish();
+        }
+    }
+
+    /**
+     * 移除节点
+     *
+     * @param serviceNodeKey 服务节点键名（服务键/地址）
+     */
+    void removeNode(String serviceNodeKey) {
+        int index = serviceNodeKey.lastIndexOf('/');
+        if (index <= 0) {
+            return;
+        }
+        ServiceEntry serviceEntry = serviceCache.get(serviceNodeKey.substring(0, index));
+        if (serviceEntry == null) {
+            return;
+        }
+        synchronized (serviceEntry) {
+            if (serviceEntry.nodes.remove(serviceNodeKey) != null) {
+                serviceEntry.publish();
+            }
+        }
+    }
+
+    /**
+     * 清空某个服务的缓存
+     *
+     * @param serviceKey
+     */
+    void clearCache(String serviceKey) {
+        serviceCache.remove(serviceKey);
     }
 
     /**
      * 清空缓存
      */
     void clearCache() {
-        this.serviceCache = null;
+        serviceCache.clear();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 单个服务的缓存：节点表只在持有锁时修改，修改后发布新的不可变快照
+     */
+    private static class ServiceEntry {
+
+        private final Map<String, ServiceMetaInfo> nodes = new LinkedHashMap<>();
+
+        private volatile List<ServiceMetaInfo> snapshot = List.of();
+
+        private void publish() {
+            snapshot = List.copyOf(nodes.values());
+        }
     }
 }
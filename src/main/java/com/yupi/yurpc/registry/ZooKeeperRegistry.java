@@ -1,24 +1,25 @@
 package com.yupi.yurpc.registry;
 
-import cn.hutool.core.collection.ConcurrentHashSet;
 import com.yupi.yurpc.config.RegistryConfig;
 import com.yupi.yurpc.model.ServiceMetaInfo;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
-import org.apache.curator.framework.recipes.cache.CuratorCache;
-import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.curator.framework.state.ConnectionState;
 import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.x.discovery.ServiceCache;
 import org.apache.curator.x.discovery.ServiceDiscovery;
 import org.apache.curator.x.discovery.ServiceDiscoveryBuilder;
 import org.apache.curator.x.discovery.ServiceInstance;
 import org.apache.curator.x.discovery.details.JsonInstanceSerializer;
+import org.apache.curator.x.discovery.details.ServiceCacheListener;
 
-import java.util.Collection;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * zookeeper 注册中心
@@ -45,12 +46,13 @@ public class ZooKeeperRegistry implements Registry {
     /**
      * 注册中心服务缓存
      */
-    private final RegistryServiceCache registryServiceCache = new RegistryServiceCache();
+    private final RegistryServiceCache registryServiceCache = new RegistryServiceCache(RegistryKeys.ZOOKEEPER);
 
     /**
-     * 正在监听的 key 集合
+     * 正在监听的服务：服务键 => Curator 服务缓存
+     * 服务缓存监听该服务下的所有节点，变更时推送完整的节点列表到本地缓存
      */
-    private final Set<String> watchingKeySet = new ConcurrentHashSet<>();
+    private final Map<String, ServiceCache<ServiceMetaInfo>> serviceCacheMap = new ConcurrentHashMap<>();
 
     /**
      * 根节点
@@ -108,23 +110,14 @@ public class ZooKeeperRegistry implements Registry {
     @Override
     public List<ServiceMetaInfo> serviceDiscovery(String serviceKey) {
         // 优先从缓存获取服务
-        List<ServiceMetaInfo> cachedServiceMetaInfoList = registryServiceCache.readCache();
+        List<ServiceMetaInfo> cachedServiceMetaInfoList = registryServiceCache.readCache(serviceKey);
         if (cachedServiceMetaInfoList != null) {
             return cachedServiceMetaInfoList;
         }
 
         try {
-            // 查询服务信息
-            Collection<ServiceInstance<ServiceMetaInfo>> serviceInstanceList = serviceDiscovery.queryForInstances(serviceKey);
-
-            // 解析服务信息
-            List<ServiceMetaInfo> serviceMetaInfoList = serviceInstanceList.stream()
-                    .map(ServiceInstance::getPayload)
-                    .collect(Collectors.toList());
-
-            // 写入服务缓存
-            registryServiceCache.writeCache(serviceMetaInfoList);
-            return serviceMetaInfoList;
+            // 首次发现该服务时启动服务缓存，之后的节点变更都由服务缓存推送，不再查询 zk
+            return watchService(serviceKey);
         } catch (Exception e) {
             throw new RuntimeException("获取服务列表失败", e);
         }
@@ -137,23 +130,80 @@ public class ZooKeeperRegistry implements Registry {
 
     /**
      * 监听（消费端）
+     * 按节点所属服务监听
      *
      * @param serviceNodeKey 服务节点 key
      */
     @Override
     public void watch(String serviceNodeKey) {
-        String watchKey = ZK_ROOT_PATH + "/" + serviceNodeKey;
-        boolean newWatch = watchingKeySet.add(watchKey);
-        if (newWatch) {
-            CuratorCache curatorCache = CuratorCache.build(client, watchKey);
-            curatorCache.start();
-            curatorCache.listenable().addListener(
-                    CuratorCacheListener
-                            .builder()
-                            .forDeletes(childData -> registryServiceCache.clearCache())
-                            .forChanges(((oldNode, node) -> registryServiceCache.clearCache()))
-                            .build()
-            );
+        int index = serviceNodeKey.lastIndexOf('/');
+        try {
+            watchService(index > 0 ? serviceNodeKey.substring(0, index) : serviceNodeKey);
+        } catch (Exception e) {
+            throw new RuntimeException(serviceNodeKey + "监听失败", e);
+        }
+    }
+
+    /**
+     * 监听服务（每个服务一个 Curator 服务缓存）
+     *
+     * @param serviceKey
+     * @return 服务当前的节点列表
+     * @throws Exception
+     */
+    private synchronized List<ServiceMetaInfo> watchService(String serviceKey) throws Exception {
+        ServiceCache<ServiceMetaInfo> serviceCache = serviceCacheMap.get(serviceKey);
+        if (serviceCache == null) {
+            ServiceCache<ServiceMetaInfo> newServiceCache = serviceDiscovery.serviceCacheBuilder()
+                    .name(serviceKey)
+                    .build();
+            // 先添加监听器再启动，启动期间的变更也不会丢失
+            newServiceCache.addListener(new ServiceCacheListener() {
+                @Override
+                public void cacheChanged() {
+                    refreshCache(serviceKey, newServiceCache);
+                }
+
+                @Override
+                public void stateChanged(CuratorFramework client, ConnectionState newState) {
+                    // 重连后服务缓存会自动重建并推送变更
+                }
+            });
+            try {
+                newServiceCache.start();
+            } catch (Exception e) {
+                closeQuietly(newServiceCache);
+                throw e;
+            }
+            serviceCacheMap.put(serviceKey, newServiceCache);
+            serviceCache = newServiceCache;
+        }
+        return refreshCache(serviceKey, serviceCache);
+    }
+
+    /**
+     * 用服务缓存中的最新节点列表刷新本地缓存
+     * 按服务缓存串行执行，保证读取与发布的顺序一致，较早读到的列表不会覆盖较新的列表
+     *
+     * @param serviceKey
+     * @param serviceCache
+     * @return
+     */
+    private List<ServiceMetaInfo> refreshCache(String serviceKey, ServiceCache<ServiceMetaInfo> serviceCache) {
+        synchronized (serviceCache) {
+            List<ServiceMetaInfo> serviceMetaInfoList = serviceCache.getInstances().stream()
+                    .map(ServiceInstance::getPayload)
+                    .toList();
+            registryServiceCache.refreshCache(serviceKey, serviceMetaInfoList);
+            return serviceMetaInfoList;
+        }
+    }
+
+    private void closeQuietly(ServiceCache<ServiceMetaInfo> serviceCache) {
+        try {
+            serviceCache.close();
+        } catch (IOException e) {
+            log.warn("failed to close service cache", e);
         }
     }
 
@@ -170,6 +220,10 @@ public class ZooKeeperRegistry implements Registry {
         }
 
         // 释放资源
+        synchronized (this) {
+            serviceCacheMap.values().forEach(this::closeQuietly);
+            serviceCacheMap.clear();
+        }
         if (client != null) {
             client.close();
         }
@@ -0,0 +1,858 @@
+package com.yupi.yurpc.serializer;
+
+import com.esotericsoftware.kryo.util.Pool;
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 紧凑二进制序列化器
+ * 面向参数和返回值以基本类型、String 和简单 POJO 为主的调用：RpcRequest / RpcResponse 按固定布局直接写入字节数组，
+ * 基本类型按定长大端写入，POJO 按每个类只构建一次的字段编解码器（MethodHandle，无逐次反射）读写，
+ * 同一消息中重复出现的类只写一次类名；ArrayList / HashSet / HashMap 等常用集合按 List / Set / Map 写入，
+ * 解码为 ArrayList / LinkedHashSet / LinkedHashMap，LinkedList、TreeSet、TreeMap 等其他具体集合和其他类型交给 Kryo 以保留原类型
+ * POJO 需为非 JDK 的具体类、有无参构造器且没有循环引用，字段按名称排序，服务提供者和消费者的类定义需一致
+ * 响应中的异常只传递类名和消息，消费端用异常类的 (String) 构造器还原（不可还原时包装为 RuntimeException），
+ * 异常的 cause 和堆栈不会传递；读取时校验长度并限制嵌套深度，格式错误的消息统一抛出 IOException
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class BinarySerializer implements Serializer {
+
+    /**
+     * 值类型标记，只能在末尾追加
+     */
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_TRUE = 1;
+    private static final byte TAG_FALSE = 2;
+    private static final byte TAG_BYTE = 3;
+    private static final byte TAG_SHORT = 4;
+    private static final byte TAG_CHAR = 5;
+    private static final byte TAG_INT = 6;
+    private static final byte TAG_LONG = 7;
+    private static final byte TAG_FLOAT = 8;
+    private static final byte TAG_DOUBLE = 9;
+    private static final byte TAG_STRING = 10;
+    private static final byte TAG_BYTES = 11;
+    private static final byte TAG_LIST = 12;
+    private static final byte TAG_SET = 13;
+    private static final byte TAG_MAP = 14;
+    private static final byte TAG_POJO = 15;
+    private static final byte TAG_KRYO = 16;
+
+    /**
+     * 集合、Map、POJO 的最大嵌套深度，防止恶意消息导致栈溢出
+     */
+    private static final int MAX_NESTING_DEPTH = 64;
+
+    /**
+     * 其他类型的后备序列化器
+     */
+    private static final KryoSerializer FALLBACK_SERIALIZER = new KryoSerializer();
+
+    /**
+     * 池中最多保留的写入器数
+     */
+    private static final int POOL_MAX_CAPACITY = 64;
+
+    /**
+     * 可归还到池中的最大缓冲区（避免偶发的大消息长期占用内存）
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * 写入器对象池（复用缓冲区，与 KryoSerializer 一样不依赖 ThreadLocal）
+     */
+    private static final Pool<BinaryWriter> WRITER_POOL = new Pool<>(true, false, POOL_MAX_CAPACITY) {
+        @Override
+        protected BinaryWriter create() {
+            return new BinaryWriter();
+        }
+    };
+
+    /**
+     * 类 => POJO 编解码器，不是简单 POJO 的类为 NOT_POJO
+     */
+    private static final Map<Class<?>, PojoCodec> POJO_CODEC_CACHE = new ConcurrentHashMap<>();
+
+    private static final PojoCodec NOT_POJO = new PojoCodec(null, null, new FieldCodec[0]);
+
+    private static final VarHandle SHORT_HANDLE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle CHAR_HANDLE = MethodHandles.byteArrayViewVarHandle(char[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_HANDLE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    @Override
+    public <T> byte[] serialize(T object) throws IOException {
+        BinaryWriter writer = WRITER_POOL.obtain();
+        try {
+            write(writer, object);
+            return Arrays.copyOf(writer.buffer, writer.position);
+        } finally {
+            freeWriter(writer);
+        }
+    }
+
+    @Override
+    public <T> void serialize(T object, OutputStream outputStream) throws IOException {
+        BinaryWriter writer = WRITER_POOL.obtain();
+        try {
+            write(writer, object);
+            outputStream.write(writer.buffer, 0, writer.position);
+        } finally {
+            freeWriter(writer);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> tClass) throws IOException {
+        BinaryReader reader = new BinaryReader(bytes);
+        try {
+            if (tClass == RpcRequest.class) {
+                return tClass.cast(readRequest(reader));
+            }
+            if (tClass == RpcResponse.class) {
+                return tClass.cast(readResponse(reader));
+            }
+            return tClass.cast(reader.readValue());
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("二进制消息不完整", e);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> tClass) throws IOException {
+        return deserialize(inputStream.readAllBytes(), tClass);
+    }
+
+    private void write(BinaryWriter writer, Object object) throws IOException {
+        if (object instanceof RpcRequest) {
+            writeRequest(writer, (RpcRequest) object);
+        } else if (object instanceof RpcResponse) {
+            writeResponse(writer, (RpcResponse) object);
+        } else {
+            writer.writeValue(object);
+        }
+    }
+
+    private static void freeWriter(BinaryWriter writer) {
+        writer.reset();
+        if (writer.buffer.length <= MAX_POOLED_BUFFER_SIZE) {
+            WRITER_POOL.free(writer);
+        }
+    }
+
+    private void writeRequest(BinaryWriter writer, RpcRequest rpcRequest) throws IOException {
+        writer.writeInt(rpcRequest.getMethodId());
+        writer.writeString(rpcRequest.getServiceName());
+        writer.writeString(rpcRequest.getMethodName());
+        writer.writeString(rpcRequest.getServiceVersion());
+        Class<?>[] parameterTypes = rpcRequest.getParameterTypes();
+        writer.writeLength(parameterTypes);
+        if (parameterTypes != null) {
+            for (Class<?> parameterType : parameterTypes) {
+                writer.writeString(ClassResolver.toDescriptor(parameterType));
+            }
+        }
+        Object[] args = rpcRequest.getArgs();
+        writer.writeLength(args);
+        if (args != null) {
+            for (Object arg : args) {
+                writer.writeValue(arg);
+            }
+        }
+    }
+
+    private RpcRequest readRequest(BinaryReader reader) throws IOException {
+        RpcRequest rpcRequest = new RpcRequest();
+        rpcRequest.setMethodId(reader.readInt());
+        rpcRequest.setServiceName(reader.readString());
+        rpcRequest.setMethodName(reader.readString());
+        rpcRequest.setServiceVersion(reader.readString());
+        int parameterTypeCount = reader.readLength();
+        if (parameterTypeCount >= 0) {
+            Class<?>[] parameterTypes = new Class<?>[parameterTypeCount];
+            for (int i = 0; i < parameterTypeCount; i++) {
+                parameterTypes[i] = reader.readClass(reader.readString());
+            }
+            rpcRequest.setParameterTypes(parameterTypes);
+        }
+        int argCount = reader.readLength();
+        if (argCount >= 0) {
+            Object[] args = new Object[argCount];
+            for (int i = 0; i < argCount; i++) {
+                args[i] = reader.readValue();
+            }
+            rpcRequest.setArgs(args);
+        }
+        return rpcRequest;
+    }
+
+    private void writeResponse(BinaryWriter writer, RpcResponse rpcResponse) throws IOException {
+        writer.writeValue(rpcResponse.getData());
+        writer.writeString(rpcResponse.getDataType() != null ? ClassResolver.toDescriptor(rpcResponse.getDataType()) : null);
+        writer.writeString(rpcResponse.getDataGenericType());
+        writer.writeString(rpcResponse.getMessage());
+        Exception exception = rpcResponse.getException();
+        writer.writeString(exception != null ? exception.getClass().getName() : null);
+        if (exception != null) {
+            writer.writeString(exception.getMessage());
+        }
+    }
+
+    private RpcResponse readResponse(BinaryReader reader) throws IOException {
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setData(reader.readValue());
+        String dataType = reader.readString();
+        rpcResponse.setDataType(dataType != null ? reader.readClass(dataType) : null);
+        rpcResponse.setDataGenericType(reader.readString());
+        rpcResponse.setMessage(reader.readString());
+        String exceptionType = reader.readString();
+        if (exceptionType != null) {
+            rpcResponse.setException(toException(exceptionType, reader.readString()));
+        }
+        return rpcResponse;
+    }
+
+    /**
+     * 还原异常：优先使用异常类的 (String) 构造器，无法还原时包装为 RuntimeException
+     *
+     * @param typeName
+     * @param message
+     * @return
+     */
+    private Exception toException(String typeName, String message) {
+        try {
+            Class<?> exceptionClass = ClassResolver.resolve(typeName);
+            if (Exception.class.isAssignableFrom(exceptionClass)) {
+                return (Exception) exceptionClass.getConstructor(String.class).newInstance(message);
+            }
+        } catch (Exception ignored) {
+            // 消费端没有该异常类或没有 (String) 构造器
+        }
+        return new RuntimeException(typeName + ": " + message);
+    }
+
+    /**
+     * 获取 POJO 编解码器（每个类只构建一次）
+     *
+     * @param clazz
+     * @return 不是简单 POJO 时为 NOT_POJO
+     */
+    private static PojoCodec getPojoCodec(Class<?> clazz) {
+        PojoCodec pojoCodec = POJO_CODEC_CACHE.get(clazz);
+        if (pojoCodec == null) {
+            pojoCodec = POJO_CODEC_CACHE.computeIfAbsent(clazz, BinarySerializer::createPojoCodec);
+        }
+        return pojoCodec;
+    }
+
+    private static PojoCodec createPojoCodec(Class<?> clazz) {
+        String className = clazz.getName();
+        if (clazz.isInterface() || clazz.isArray() || clazz.isEnum() || clazz.isPrimitive() || clazz.isRecord()
+                || Modifier.isAbstract(clazz.getModifiers()) || Throwable.class.isAssignableFrom(clazz)
+                || className.startsWith("java.") || className.startsWith("javax.") || className.startsWith("jdk.")) {
+            return NOT_POJO;
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+            MethodHandle constructor = lookup.findConstructor(clazz, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = clazz; current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+                        fields.add(field);
+                    }
+                }
+            }
+            fields.sort(Comparator.comparing(Field::getName).thenComparing(field -> field.getDeclaringClass().getName()));
+            FieldCodec[] fieldCodecs = new FieldCodec[fields.size()];
+            for (int i = 0; i < fieldCodecs.length; i++) {
+                Field field = fields.get(i);
+                MethodHandles.Lookup fieldLookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+                Class<?> fieldType = field.getType();
+                Class<?> handleType = fieldType.isPrimitive() ? fieldType : Object.class;
+                MethodHandle getter = fieldLookup.unreflectGetter(field)
+                        .asType(MethodType.methodType(handleType, Object.class));
+                MethodHandle setter = Modifier.isFinal(field.getModifiers()) ? null : fieldLookup.unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, Object.class, handleType));
+                if (setter == null) {
+                    return NOT_POJO;
+                }
+                fieldCodecs[i] = new FieldCodec(fieldType.isPrimitive() ? fieldType : null, getter, setter);
+            }
+            return new PojoCodec(className, constructor, fieldCodecs);
+        } catch (ReflectiveOperationException | IllegalArgumentException | SecurityException e) {
+            // 没有无参构造器或无法访问，交给 Kryo
+            return NOT_POJO;
+        }
+    }
+
+    /**
+     * POJO 编解码器
+     */
+    private static class PojoCodec {
+
+        private final String className;
+
+        /**
+         * 无参构造器，类型为 () -> Object
+         */
+        private final MethodHandle constructor;
+
+        private final FieldCodec[] fieldCodecs;
+
+        private PojoCodec(String className, MethodHandle constructor, FieldCodec[] fieldCodecs) {
+            this.className = className;
+            this.constructor = constructor;
+            this.fieldCodecs = fieldCodecs;
+        }
+    }
+
+    /**
+     * 字段编解码器：基本类型字段按定长写入，不写类型标记、不装箱
+     */
+    private static class FieldCodec {
+
+        /**
+         * 基本类型，引用类型为 null
+         */
+        private final Class<?> primitiveType;
+
+        /**
+         * 类型为 (Object) -> 字段类型（引用类型为 Object）
+         */
+        private final MethodHandle getter;
+
+        /**
+         * 类型为 (Object, 字段类型) -> void
+         */
+        private final MethodHandle setter;
+
+        private FieldCodec(Class<?> primitiveType, MethodHandle getter, MethodHandle setter) {
+            this.primitiveType = primitiveType;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        private void write(BinaryWriter writer, Object obj) throws Throwable {
+            if (primitiveType == null) {
+                writer.writeValue((Object) getter.invokeExact(obj));
+            } else if (primitiveType == int.class) {
+                writer.writeInt((int) getter.invokeExact(obj));
+            } else if (primitiveType == long.class) {
+                writer.writeLong((long) getter.invokeExact(obj));
+            } else if (primitiveType == double.class) {
+                writer.writeLong(Double.doubleToRawLongBits((double) getter.invokeExact(obj)));
+            } else if (primitiveType == boolean.class) {
+                writer.writeByte((boolean) getter.invokeExact(obj) ? 1 : 0);
+            } else if (primitiveType == float.class) {
+                writer.writeInt(Float.floatToRawIntBits((float) getter.invokeExact(obj)));
+            } else if (primitiveType == short.class) {
+                writer.writeShort((short) getter.invokeExact(obj));
+            } else if (primitiveType == char.class) {
+                writer.writeChar((char) getter.invokeExact(obj));
+            } else {
+                writer.writeByte((byte) getter.invokeExact(obj));
+            }
+        }
+
+        private void read(BinaryReader reader, Object obj) throws Throwable {
+            if (primitiveType == null) {
+                setter.invokeExact(obj, reader.readValue());
+            } else if (primitiveType == int.class) {
+                setter.invokeExact(obj, reader.readInt());
+            } else if (primitiveType == long.class) {
+                setter.invokeExact(obj, reader.readLong());
+            } else if (primitiveType == double.class) {
+                setter.invokeExact(obj, Double.longBitsToDouble(reader.readLong()));
+            } else if (primitiveType == boolean.class) {
+                setter.invokeExact(obj, reader.readByte() != 0);
+            } else if (primitiveType == float.class) {
+                setter.invokeExact(obj, Float.intBitsToFloat(reader.readInt()));
+            } else if (primitiveType == short.class) {
+                setter.invokeExact(obj, reader.readShort());
+            } else if (primitiveType == char.class) {
+                setter.invokeExact(obj, reader.readChar());
+            } else {
+                setter.invokeExact(obj, reader.readByte());
+            }
+        }
+    }
+
+    /**
+     * 写入器：可扩容的字节数组
+     */
+    private static class BinaryWriter {
+
+        private byte[] buffer = new byte[256];
+
+        private int position;
+
+        /**
+         * 本消息中已写出的 POJO 类 => 序号
+         */
+        private final Map<Class<?>, Integer> classIndexes = new HashMap<>();
+
+        /**
+         * 上一个写出的 POJO 类及其编解码器、序号（列表元素通常是同一个类，免去查表）
+         */
+        private Class<?> lastPojoClass;
+
+        private PojoCodec lastPojoCodec;
+
+        private int lastClassIndex;
+
+        private void reset() {
+            position = 0;
+            classIndexes.clear();
+            lastPojoClass = null;
+            lastPojoCodec = null;
+        }
+
+        private void ensureCapacity(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + length));
+            }
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeShort(short value) {
+            ensureCapacity(2);
+            SHORT_HANDLE.set(buffer, position, value);
+            position += 2;
+        }
+
+        private void writeChar(char value) {
+            ensureCapacity(2);
+            CHAR_HANDLE.set(buffer, position, value);
+            position += 2;
+        }
+
+        private void writeInt(int value) {
+            ensureCapacity(4);
+            INT_HANDLE.set(buffer, position, value);
+            position += 4;
+        }
+
+        private void writeLong(long value) {
+            ensureCapacity(8);
+            LONG_HANDLE.set(buffer, position, value);
+            position += 8;
+        }
+
+        private void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        /**
+         * 写入长度，null 写为 0，其余为长度 + 1
+         */
+        private void writeLength(Object[] array) {
+            writeVarInt(array == null ? 0 : array.length + 1);
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            // ASCII 字符串直接逐字节写入，不创建中间字节数组
+            int length = value.length();
+            int start = position;
+            writeVarInt(length + 1);
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    position = start;
+                    writeUtf8String(value);
+                    return;
+                }
+                buffer[position++] = (byte) c;
+            }
+        }
+
+        private void writeUtf8String(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                writeByte(TAG_NULL);
+            } else if (value.getClass() == lastPojoClass) {
+                writeByte(TAG_POJO);
+                writeVarInt(lastClassIndex);
+                writePojoFields(value, lastPojoCodec);
+            } else if (value instanceof String) {
+                writeByte(TAG_STRING);
+                writeString((String) value);
+            } else if (value instanceof Integer) {
+                writeByte(TAG_INT);
+                writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                writeByte(TAG_LONG);
+                writeLong((Long) value);
+            } else if (value instanceof Double) {
+                writeByte(TAG_DOUBLE);
+                writeLong(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof Boolean) {
+                writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+            } else if (value instanceof Float) {
+                writeByte(TAG_FLOAT);
+                writeInt(Float.floatToRawIntBits((Float) value));
+            } else if (value instanceof Short) {
+                writeByte(TAG_SHORT);
+                writeShort((Short) value);
+            } else if (value instanceof Character) {
+                writeByte(TAG_CHAR);
+                writeChar((Character) value);
+            } else if (value instanceof Byte) {
+                writeByte(TAG_BYTE);
+                writeByte((Byte) value);
+            } else if (value instanceof byte[]) {
+                writeByte(TAG_BYTES);
+                writeBytes((byte[]) value);
+            } else if (value instanceof List && isPlainCollection(value, ArrayList.class)) {
+                writeByte(TAG_LIST);
+                writeCollection((List<?>) value);
+            } else if (value instanceof Set && isPlainCollection(value, HashSet.class)) {
+                writeByte(TAG_SET);
+                writeCollection((Set<?>) value);
+            } else if (value instanceof Map && isPlainCollection(value, HashMap.class)) {
+                writeByte(TAG_MAP);
+                Map<?, ?> map = (Map<?, ?>) value;
+                writeVarInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else {
+                PojoCodec pojoCodec = getPojoCodec(value.getClass());
+                if (pojoCodec == NOT_POJO) {
+                    writeByte(TAG_KRYO);
+                    writeBytes(FALLBACK_SERIALIZER.serializeClassAndObject(value));
+                    return;
+                }
+                writeByte(TAG_POJO);
+                writePojo(value, pojoCodec);
+            }
+        }
+
+        /**
+         * 集合解码为 ArrayList / LinkedHashSet / LinkedHashMap 后是否仍能赋给接收方声明的类型
+         * 接收方无法把字段、参数声明为 JDK 的非公开类型，因此 List.of、Collections.unmodifiableList 等非公开实现和
+         * ArrayList、HashSet（LinkedHashSet 的父类）、HashMap（LinkedHashMap 的父类）可以按通用集合写入
+         *
+         * @param value
+         * @param plainClass 解码结果可赋值的公开实现类
+         * @return
+         */
+        private static boolean isPlainCollection(Object value, Class<?> plainClass) {
+            Class<?> valueClass = value.getClass();
+            return valueClass == plainClass || valueClass == LinkedHashSet.class || valueClass == LinkedHashMap.class
+                    || (!Modifier.isPublic(valueClass.getModifiers()) && valueClass.getName().startsWith("java."));
+        }
+
+        private void writeCollection(Collection<?> collection) throws IOException {
+            writeVarInt(collection.size());
+            for (Object element : collection) {
+                writeValue(element);
+            }
+        }
+
+        private void writePojo(Object value, PojoCodec pojoCodec) throws IOException {
+            // 类首次出现时写 0 和类名，之后只写序号
+            Integer classIndex = classIndexes.get(value.getClass());
+            if (classIndex != null) {
+                writeVarInt(classIndex);
+            } else {
+                writeVarInt(0);
+                writeString(pojoCodec.className);
+                classIndex = classIndexes.size() + 1;
+                classIndexes.put(value.getClass(), classIndex);
+            }
+            lastPojoClass = value.getClass();
+            lastPojoCodec = pojoCodec;
+            lastClassIndex = classIndex;
+            writePojoFields(value, pojoCodec);
+        }
+
+        private void writePojoFields(Object value, PojoCodec pojoCodec) throws IOException {
+            try {
+                for (FieldCodec fieldCodec : pojoCodec.fieldCodecs) {
+                    fieldCodec.write(this, value);
+                }
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IOException("POJO 序列化失败：" + pojoCodec.className, e);
+            }
+        }
+    }
+
+    /**
+     * 读取器
+     */
+    private static class BinaryReader {
+
+        private final byte[] buffer;
+
+        private int position;
+
+        /**
+         * 本消息中已读到的 POJO 编解码器，下标为序号 - 1
+         */
+        private List<PojoCodec> pojoCodecs;
+
+        /**
+         * 当前嵌套深度
+         */
+        private int depth;
+
+        private BinaryReader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private byte readByte() {
+            return buffer[position++];
+        }
+
+        private short readShort() {
+            short value = (short) SHORT_HANDLE.get(buffer, position);
+            position += 2;
+            return value;
+        }
+
+        private char readChar() {
+            char value = (char) CHAR_HANDLE.get(buffer, position);
+            position += 2;
+            return value;
+        }
+
+        private int readInt() {
+            int value = (int) INT_HANDLE.get(buffer, position);
+            position += 4;
+            return value;
+        }
+
+        private long readLong() {
+            long value = (long) LONG_HANDLE.get(buffer, position);
+            position += 8;
+            return value;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = buffer[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new ArrayIndexOutOfBoundsException("变长整数格式错误");
+        }
+
+        /**
+         * 读取长度，null 返回 -1
+         */
+        private int readLength() throws IOException {
+            int length = readVarInt() - 1;
+            return length == -1 ? -1 : checkLength(length);
+        }
+
+        /**
+         * 校验元素个数或字节数：每个元素至少占 1 字节，不能超过剩余字节数，避免按错误的长度分配大数组
+         *
+         * @param length
+         * @return
+         * @throws IOException
+         */
+        private int checkLength(int length) throws IOException {
+            if (length < 0 || length > buffer.length - position) {
+                throw new IOException("二进制消息长度错误：" + length);
+            }
+            return length;
+        }
+
+        private byte[] readBytes() throws IOException {
+            int length = checkLength(readVarInt());
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        private String readString() throws IOException {
+            int length = readLength();
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private Class<?> readClass(String name) throws IOException {
+            try {
+                return ClassResolver.resolve(name);
+            } catch (ClassNotFoundException e) {
+                throw new IOException("类不存在：" + name, e);
+            }
+        }
+
+        private Object readValue() throws IOException {
+            byte tag = readByte();
+            if (tag == TAG_LIST || tag == TAG_SET || tag == TAG_MAP || tag == TAG_POJO) {
+                if (depth >= MAX_NESTING_DEPTH) {
+                    throw new IOException("二进制消息嵌套过深");
+                }
+                depth++;
+                try {
+                    return readNestedValue(tag);
+                } finally {
+                    depth--;
+                }
+            }
+            switch (tag) {
+                case TAG_NULL:
+                    return null;
+                case TAG_TRUE:
+                    return Boolean.TRUE;
+                case TAG_FALSE:
+                    return Boolean.FALSE;
+                case TAG_BYTE:
+                    return readByte();
+                case TAG_SHORT:
+                    return readShort();
+                case TAG_CHAR:
+                    return readChar();
+                case TAG_INT:
+                    return readInt();
+                case TAG_LONG:
+                    return readLong();
+                case TAG_FLOAT:
+                    return Float.intBitsToFloat(readInt());
+                case TAG_DOUBLE:
+                    return Double.longBitsToDouble(readLong());
+                case TAG_STRING:
+                    return readString();
+                case TAG_BYTES:
+                    return readBytes();
+                case TAG_KRYO:
+                    return FALLBACK_SERIALIZER.deserializeClassAndObject(readBytes());
+                default:
+                    throw new IOException("未知的值类型标记：" + tag);
+            }
+        }
+
+        /**
+         * 读取集合、Map、POJO（调用方已检查嵌套深度）
+         *
+         * @param tag
+         * @return
+         * @throws IOException
+         */
+        private Object readNestedValue(byte tag) throws IOException {
+            switch (tag) {
+                case TAG_LIST:
+                    return readCollection(new ArrayList<>());
+                case TAG_SET:
+                    return readCollection(new LinkedHashSet<>());
+                case TAG_MAP:
+                    int size = checkLength(readVarInt());
+                    Map<Object, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        map.put(readValue(), readValue());
+                    }
+                    return map;
+                default:
+                    return readPojo();
+            }
+        }
+
+        private Collection<Object> readCollection(Collection<Object> collection) throws IOException {
+            int size = checkLength(readVarInt());
+            for (int i = 0; i < size; i++) {
+                collection.add(readValue());
+            }
+            return collection;
+        }
+
+        private Object readPojo() throws IOException {
+            if (pojoCodecs == null) {
+                pojoCodecs = new ArrayList<>();
+            }
+            int classIndex = readVarInt();
+            PojoCodec pojoCodec;
+            if (classIndex == 0) {
+                String className = readString();
+                pojoCodec = getPojoCodec(readClass(className));
+                if (pojoCodec == NOT_POJO) {
+                    throw new IOException("不支持的 POJO 类型：" + className);
+                }
+                pojoCodecs.add(pojoCodec);
+            } else {
+                pojoCodec = pojoCodecs.get(classIndex - 1);
+            }
+            try {
+                Object value = (Object) pojoCodec.constructor.invokeExact();
+                for (FieldCodec fieldCodec : pojoCodec.fieldCodecs) {
+                    fieldCodec.read(this, value);
+                }
+                return value;
+            } catch (IOException e) {
+                throw e;
+            } catch (Throwable e) {
+                // 包括字段类型与消息中的值不匹配（ClassCastException）
+                throw new IOException("POJO 反序列化失败：" + pojoCodec.className, e);
+            }
+        }
+    }
+}
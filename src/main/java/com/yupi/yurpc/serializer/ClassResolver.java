@@ -0,0 +1,135 @@
+package com.yupi.yurpc.serializer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类解析器（各序列化器共享）
+ * 反序列化参数类型、数据类型时按类名查找类，命中缓存时只是一次无锁的 ConcurrentHashMap 读取，
+ * 不会在高并发下争用类加载器的锁；基本类型和常用 JDK 类型预先放入缓存，并可编码为以 @ 开头的紧凑描述符
+ * （@ 不能出现在类名中，因此与完整类名不会混淆），解析时两种写法都支持
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class ClassResolver {
+
+    /**
+     * 紧凑描述符前缀
+     */
+    public static final char DESCRIPTOR_PREFIX = '@';
+
+    /**
+     * 类名或描述符 => 类
+     */
+    private static final Map<String, Class<?>> CLASS_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 类 => 紧凑描述符
+     */
+    private static final Map<Class<?>, String> DESCRIPTOR_MAP = new HashMap<>();
+
+    static {
+        // 描述符一旦发布不可更改，只能追加
+        registerDescriptor("z", boolean.class);
+        registerDescriptor("b", byte.class);
+        registerDescriptor("c", char.class);
+        registerDescriptor("s", short.class);
+        registerDescriptor("i", int.class);
+        registerDescriptor("j", long.class);
+        registerDescriptor("f", float.class);
+        registerDescriptor("d", double.class);
+        registerDescriptor("v", void.class);
+        registerDescriptor("Z", Boolean.class);
+        registerDescriptor("B", Byte.class);
+        registerDescriptor("C", Character.class);
+        registerDescriptor("S", Short.class);
+        registerDescriptor("I", Integer.class);
+        registerDescriptor("J", Long.class);
+        registerDescriptor("F", Float.class);
+        registerDescriptor("D", Double.class);
+        registerDescriptor("T", String.class);
+        registerDescriptor("O", Object.class);
+        registerDescriptor("L", List.class);
+        registerDescriptor("M", Map.class);
+        registerDescriptor("E", Set.class);
+        registerDescriptor("K", Collection.class);
+        registerDescriptor("P", Optional.class);
+        registerDescriptor("G", BigDecimal.class);
+        registerDescriptor("H", BigInteger.class);
+        registerDescriptor("U", Date.class);
+        registerDescriptor("W", Instant.class);
+        registerDescriptor("X", LocalDate.class);
+        registerDescriptor("Y", LocalDateTime.class);
+        registerDescriptor("Q", CompletableFuture.class);
+        registerDescriptor("[b", byte[].class);
+        registerDescriptor("[i", int[].class);
+        registerDescriptor("[j", long[].class);
+        registerDescriptor("[T", String[].class);
+        registerDescriptor("[O", Object[].class);
+    }
+
+    private static void registerDescriptor(String code, Class<?> clazz) {
+        String descriptor = DESCRIPTOR_PREFIX + code;
+        DESCRIPTOR_MAP.put(clazz, descriptor);
+        CLASS_CACHE.put(descriptor, clazz);
+        CLASS_CACHE.put(clazz.getName(), clazz);
+    }
+
+    /**
+     * 获取类的编码：常用类型为紧凑描述符，其他类型为类名
+     *
+     * @param clazz
+     * @return
+     */
+    public static String toDescriptor(Class<?> clazz) {
+        String descriptor = DESCRIPTOR_MAP.get(clazz);
+        return descriptor != null ? descriptor : clazz.getName();
+    }
+
+    /**
+     * 按类名或紧凑描述符解析类
+     *
+     * @param name
+     * @return
+     * @throws ClassNotFoundException
+     */
+    public static Class<?> resolve(String name) throws ClassNotFoundException {
+        Class<?> clazz = CLASS_CACHE.get(name);
+        if (clazz != null) {
+            return clazz;
+        }
+        if (name.isEmpty() || name.charAt(0) == DESCRIPTOR_PREFIX) {
+            throw new ClassNotFoundException("未知的类型描述符：" + name);
+        }
+        clazz = loadClass(name);
+        // 并发加载同一个类得到的是同一个 Class，重复写入无害
+        CLASS_CACHE.put(name, clazz);
+        return clazz;
+    }
+
+    private static Class<?> loadClass(String name) throws ClassNotFoundException {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        if (contextClassLoader != null) {
+            try {
+                return Class.forName(name, false, contextClassLoader);
+            } catch (ClassNotFoundException e) {
+                // 回退到框架自身的类加载器
+            }
+        }
+        return Class.forName(name, false, ClassResolver.class.getClassLoader());
+    }
+}
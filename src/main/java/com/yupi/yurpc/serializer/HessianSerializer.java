@@ -1,11 +1,19 @@
 package com.yupi.yurpc.serializer;
 
+import com.caucho.hessian.io.AbstractHessianInput;
+import com.caucho.hessian.io.AbstractMapDeserializer;
+import com.caucho.hessian.io.AbstractSerializerFactory;
+import com.caucho.hessian.io.Deserializer;
 import com.caucho.hessian.io.HessianInput;
 import com.caucho.hessian.io.HessianOutput;
+import com.caucho.hessian.io.HessianProtocolException;
+import com.caucho.hessian.io.SerializerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Hessian 序列化器
@@ -15,18 +23,116 @@ import java.io.IOException;
  * @from <a href="https://yupi.icu">编程导航知识星球</a>
  */
 public class HessianSerializer implements Serializer {
+
+    /**
+     * 共享的 Hessian 序列化工厂（线程安全）
+     * 工厂内缓存了类型名到序列化器的映射，每次新建会导致每个请求都重新加载类
+     */
+    private static final SerializerFactory SERIALIZER_FACTORY = new SerializerFactory();
+
+    static {
+        SERIALIZER_FACTORY.addFactory(new ClassResolverSerializerFactory());
+    }
+
     @Override
     public <T> byte[] serialize(T object) throws IOException {
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         HessianOutput ho = new HessianOutput(bos);
+        ho.setSerializerFactory(SERIALIZER_FACTORY);
         ho.writeObject(object);
         return bos.toByteArray();
     }
 
+    @Override
+    public <T> void serialize(T object, OutputStream outputStream) throws IOException {
+        HessianOutput ho = new HessianOutput(outputStream);
+        ho.setSerializerFactory(SERIALIZER_FACTORY);
+        ho.writeObject(object);
+        ho.flush();
+    }
+
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> tClass) throws IOException {
-        ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
-        HessianInput hi = new HessianInput(bis);
+        return deserialize(new ByteArrayInputStream(bytes), tClass);
+    }
+
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> tClass) throws IOException {
+        HessianInput hi = new HessianInput(inputStream);
+        hi.setSerializerFactory(SERIALIZER_FACTORY);
         return (T) hi.readObject(tClass);
     }
+
+    /**
+     * Class 对象（如请求的参数类型）改由 ClassResolver 解析，替代 Hessian 自带的逐次 Class.forName
+     */
+    private static class ClassResolverSerializerFactory extends AbstractSerializerFactory {
+
+        private static final Deserializer CLASS_DESERIALIZER = new ClassResolverDeserializer();
+
+        @Override
+        public com.caucho.hessian.io.Serializer getSerializer(Class cl) {
+            return null;
+        }
+
+        @Override
+        public Deserializer getDeserializer(Class cl) {
+            return Class.class.equals(cl) ? CLASS_DESERIALIZER : null;
+        }
+    }
+
+    /**
+     * Class 反序列化器，线路格式与 Hessian 自带的一致（只有一个 name 字段）
+     */
+    private static class ClassResolverDeserializer extends AbstractMapDeserializer {
+
+        @Override
+        public Class<?> getType() {
+            return Class.class;
+        }
+
+        @Override
+        public Object readMap(AbstractHessianInput in) throws IOException {
+            int ref = in.addRef(null);
+            String name = null;
+            while (!in.isEnd()) {
+                if ("name".equals(in.readString())) {
+                    name = in.readString();
+                } else {
+                    in.readObject();
+                }
+            }
+            in.readMapEnd();
+            Class<?> clazz = resolve(name);
+            in.setRef(ref, clazz);
+            return clazz;
+        }
+
+        @Override
+        public Object readObject(AbstractHessianInput in, Object[] fields) throws IOException {
+            int ref = in.addRef(null);
+            String name = null;
+            for (Object field : fields) {
+                if ("name".equals(field)) {
+                    name = in.readString();
+                } else {
+                    in.readObject();
+                }
+            }
+            Class<?> clazz = resolve(name);
+            in.setRef(ref, clazz);
+            return clazz;
+        }
+
+        private Class<?> resolve(String name) throws IOException {
+            if (name == null) {
+                throw new HessianProtocolException("Class 缺少类名");
+            }
+            try {
+                return ClassResolver.resolve(name);
+            } catch (ClassNotFoundException e) {
+                throw new IOException("类不存在：" + name, e);
+            }
+        }
+    }
 }
@@ -28,6 +28,21 @@ public class JdkSerializer implements Serializer {
         return outputStream.toByteArray();
     }
 
+    /**
+     * 序列化（直接写入输出流）
+     *
+     * @param object
+     * @param outputStream
+     * @param <T>
+     * @throws IOException
+     */
+    @Override
+    public <T> void serialize(T object, OutputStream outputStream) throws IOException {
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeObject(object);
+        objectOutputStream.flush();
+    }
+
     /**
      * 反序列化
      *
@@ -39,8 +54,21 @@ public class JdkSerializer implements Serializer {
      */
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> type) throws IOException {
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-        ObjectInputStream objectInputStream = new ObjectInputStream(inputStream);
+        return deserialize(new ByteArrayInputStream(bytes), type);
+    }
+
+    /**
+     * 反序列化（直接读取输入流）
+     *
+     * @param inputStream
+     * @param type
+     * @param <T>
+     * @return
+     * @throws IOException
+     */
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> type) throws IOException {
+        ObjectInputStream objectInputStream = new CachingObjectInputStream(inputStream);
         try {
             return (T) objectInputStream.readObject();
         } catch (ClassNotFoundException e) {
@@ -49,4 +77,23 @@ public class JdkSerializer implements Serializer {
             objectInputStream.close();
         }
     }
+
+    /**
+     * 通过 ClassResolver 解析类的对象输入流，避免每次反序列化都经过类加载器
+     */
+    private static class CachingObjectInputStream extends ObjectInputStream {
+
+        private CachingObjectInputStream(InputStream inputStream) throws IOException {
+            super(inputStream);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return ClassResolver.resolve(desc.getName());
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
 }
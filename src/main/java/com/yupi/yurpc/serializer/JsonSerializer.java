@@ -1,13 +1,33 @@
 package com.yupi.yurpc.serializer;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.yupi.yurpc.model.RpcRequest;
 import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.utils.MethodIdUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Json 序列化器
+ * RpcRequest / RpcResponse 采用流式读写：先写类型信息再写数据，读取时按声明类型直接绑定参数和响应数据，
+ * 不再先解析成 LinkedHashMap 再序列化、反序列化一遍；类型信息出现在数据之后时，数据先暂存为 TokenBuffer
  *
  * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
  * @learn <a href="https://codefather.cn">编程宝典</a>
@@ -16,59 +36,359 @@ import java.io.IOException;
 public class JsonSerializer implements Serializer {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
+    private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+
+    private static final TypeFactory TYPE_FACTORY = OBJECT_MAPPER.getTypeFactory();
+
+    private static final JavaType OBJECT_TYPE = TYPE_FACTORY.constructType(Object.class);
+
+    /**
+     * 写入输出流时不关闭目标流（由调用方管理）
+     */
+    private static final ObjectWriter STREAM_WRITER = OBJECT_MAPPER.writer()
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    /**
+     * 泛型类型名缓存的最大条目数
+     * 类型名来自对端，缓存满后不再加入新条目，避免异常的对端发送任意类型名使缓存无限增长
+     */
+    private static final int MAX_GENERIC_TYPE_CACHE_SIZE = 1024;
+
+    /**
+     * 泛型类型名 => JavaType
+     */
+    private static final Map<String, JavaType> GENERIC_TYPE_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 服务方法 => 参数的泛型 JavaType
+     */
+    private static final Map<Method, JavaType[]> PARAMETER_TYPE_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 只携带方法 id 的请求通过它获取参数类型
+     */
+    private volatile MethodResolver methodResolver;
+
+    public JsonSerializer() {
+        this(MethodResolver.NONE);
+    }
+
+    public JsonSerializer(MethodResolver methodResolver) {
+        this.methodResolver = methodResolver;
+    }
+
+    /**
+     * 设置方法解析器（服务提供者注册服务时注入）
+     *
+     * @param methodResolver
+     */
+    public void setMethodResolver(MethodResolver methodResolver) {
+        this.methodResolver = methodResolver;
+    }
+
     @Override
     public <T> byte[] serialize(T obj) throws IOException {
+        if (obj instanceof RpcRequest || obj instanceof RpcResponse) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(256);
+            serialize(obj, outputStream);
+            return outputStream.toByteArray();
+        }
         return OBJECT_MAPPER.writeValueAsBytes(obj);
     }
 
+    @Override
+    public <T> void serialize(T obj, OutputStream outputStream) throws IOException {
+        if (obj instanceof RpcRequest || obj instanceof RpcResponse) {
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                if (obj instanceof RpcRequest) {
+                    writeRequest(generator, (RpcRequest) obj);
+                } else {
+                    writeResponse(generator, (RpcResponse) obj);
+                }
+            }
+            return;
+        }
+        STREAM_WRITER.writeValue(outputStream, obj);
+    }
+
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> classType) throws IOException {
-        T obj = OBJECT_MAPPER.readValue(bytes, classType);
-        if (obj instanceof RpcRequest) {
-            return handleRequest((RpcRequest) obj, classType);
+        return deserialize(JSON_FACTORY.createParser(bytes), classType);
+    }
+
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> classType) throws IOException {
+        return deserialize(JSON_FACTORY.createParser(inputStream), classType);
+    }
+
+    private <T> T deserialize(JsonParser parser, Class<T> classType) throws IOException {
+        try (parser) {
+            if (classType == RpcRequest.class) {
+                parser.nextToken();
+                return classType.cast(readRequest(parser));
+            }
+            if (classType == RpcResponse.class) {
+                parser.nextToken();
+                return classType.cast(readResponse(parser));
+            }
+            return OBJECT_MAPPER.readValue(parser, classType);
+        }
+    }
+
+    /**
+     * 写请求：参数类型写在参数之前，读取时可直接按类型绑定参数
+     *
+     * @param generator
+     * @param rpcRequest
+     * @throws IOException
+     */
+    private void writeRequest(JsonGenerator generator, RpcRequest rpcRequest) throws IOException {
+        generator.writeStartObject();
+        writeStringField(generator, "serviceName", rpcRequest.getServiceName());
+        writeStringField(generator, "methodName", rpcRequest.getMethodName());
+        writeStringField(generator, "serviceVersion", rpcRequest.getServiceVersion());
+        if (rpcRequest.getMethodId() != MethodIdUtils.NO_METHOD_ID) {
+            generator.writeNumberField("methodId", rpcRequest.getMethodId());
         }
-        if (obj instanceof RpcResponse) {
-            return handleResponse((RpcResponse) obj, classType);
+        if (rpcRequest.getParameterTypes() != null) {
+            generator.writeArrayFieldStart("parameterTypes");
+            for (Class<?> parameterType : rpcRequest.getParameterTypes()) {
+                generator.writeString(ClassResolver.toDescriptor(parameterType));
+            }
+            generator.writeEndArray();
+        }
+        if (rpcRequest.getArgs() != null) {
+            generator.writeArrayFieldStart("args");
+            for (Object arg : rpcRequest.getArgs()) {
+                generator.writeObject(arg);
+            }
+            generator.writeEndArray();
         }
-        return obj;
+        generator.writeEndObject();
+    }
+
+    private RpcRequest readRequest(JsonParser parser) throws IOException {
+        expectStartObject(parser);
+        RpcRequest rpcRequest = new RpcRequest();
+        // 参数类型未知时暂存的参数
+        TokenBuffer pendingArgs = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (fieldName) {
+                case "serviceName":
+                    rpcRequest.setServiceName(parser.getValueAsString());
+                    break;
+                case "methodName":
+                    rpcRequest.setMethodName(parser.getValueAsString());
+                    break;
+                case "serviceVersion":
+                    rpcRequest.setServiceVersion(parser.getValueAsString());
+                    break;
+                case "methodId":
+                    rpcRequest.setMethodId(parser.getValueAsInt());
+                    break;
+                case "parameterTypes":
+                    rpcRequest.setParameterTypes(token == JsonToken.VALUE_NULL ? null : readClasses(parser));
+                    break;
+                case "args":
+                    if (token == JsonToken.VALUE_NULL) {
+                        rpcRequest.setArgs(null);
+                    } else if (rpcRequest.getParameterTypes() != null || rpcRequest.getMethodId() != MethodIdUtils.NO_METHOD_ID) {
+                        rpcRequest.setArgs(readArgs(parser, resolveArgTypes(rpcRequest)));
+                    } else {
+                        pendingArgs = TokenBuffer.asCopyOfValue(parser);
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (pendingArgs != null) {
+            try (JsonParser argsParser = pendingArgs.asParser(OBJECT_MAPPER)) {
+                argsParser.nextToken();
+                rpcRequest.setArgs(readArgs(argsParser, resolveArgTypes(rpcRequest)));
+            }
+        }
+        return rpcRequest;
     }
 
     /**
-     * 由于 Object 的原始对象会被擦除，导致反序列化时会被作为 LinkedHashMap 无法转换成原始对象，因此这里做了特殊处理
+     * 写响应：数据类型写在数据之前，读取时可直接按类型绑定数据
      *
-     * @param rpcRequest rpc 请求
-     * @param type       类型
-     * @return {@link T}
-     * @throws IOException IO异常
+     * @param generator
+     * @param rpcResponse
+     * @throws IOException
      */
-    private <T> T handleRequest(RpcRequest rpcRequest, Class<T> type) throws IOException {
-        Class<?>[] parameterTypes = rpcRequest.getParameterTypes();
-        Object[] args = rpcRequest.getArgs();
+    private void writeResponse(JsonGenerator generator, RpcResponse rpcResponse) throws IOException {
+        generator.writeStartObject();
+        if (rpcResponse.getDataType() != null) {
+            generator.writeStringField("dataType", ClassResolver.toDescriptor(rpcResponse.getDataType()));
+        }
+        writeStringField(generator, "dataGenericType", rpcResponse.getDataGenericType());
+        writeStringField(generator, "message", rpcResponse.getMessage());
+        if (rpcResponse.getData() != null) {
+            generator.writeFieldName("data");
+            generator.writeObject(rpcResponse.getData());
+        }
+        if (rpcResponse.getException() != null) {
+            generator.writeFieldName("exception");
+            generator.writeObject(rpcResponse.getException());
+        }
+        generator.writeEndObject();
+    }
 
-        // 循环处理每个参数的类型
-        for (int i = 0; i < parameterTypes.length; i++) {
-            Class<?> clazz = parameterTypes[i];
-            // 如果类型不同，则重新处理一下类型
-            if (!clazz.isAssignableFrom(args[i].getClass())) {
-                byte[] argBytes = OBJECT_MAPPER.writeValueAsBytes(args[i]);
-                args[i] = OBJECT_MAPPER.readValue(argBytes, clazz);
+    private RpcResponse readResponse(JsonParser parser) throws IOException {
+        expectStartObject(parser);
+        RpcResponse rpcResponse = new RpcResponse();
+        // 数据类型未知时暂存的数据
+        TokenBuffer pendingData = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (fieldName) {
+                case "dataType":
+                    String dataType = parser.getValueAsString();
+                    rpcResponse.setDataType(dataType != null ? resolveClass(dataType) : null);
+                    break;
+                case "dataGenericType":
+                    rpcResponse.setDataGenericType(parser.getValueAsString());
+                    break;
+                case "message":
+                    rpcResponse.setMessage(parser.getValueAsString());
+                    break;
+                case "data":
+                    if (token == JsonToken.VALUE_NULL) {
+                        rpcResponse.setData(null);
+                    } else if (rpcResponse.getDataType() != null || rpcResponse.getDataGenericType() != null) {
+                        rpcResponse.setData(OBJECT_MAPPER.readValue(parser, resolveDataType(rpcResponse)));
+                    } else {
+                        pendingData = TokenBuffer.asCopyOfValue(parser);
+                    }
+                    break;
+                case "exception":
+                    rpcResponse.setException(token == JsonToken.VALUE_NULL ? null : OBJECT_MAPPER.readValue(parser, Exception.class));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (pendingData != null) {
+            try (JsonParser dataParser = pendingData.asParser(OBJECT_MAPPER)) {
+                dataParser.nextToken();
+                rpcResponse.setData(OBJECT_MAPPER.readValue(dataParser, resolveDataType(rpcResponse)));
+            }
+        }
+        return rpcResponse;
+    }
+
+    /**
+     * 逐个按类型绑定参数
+     *
+     * @param parser   位于参数数组开始处
+     * @param argTypes 参数类型，为 null 时按 JSON 原始结构解析
+     * @return
+     * @throws IOException
+     */
+    private Object[] readArgs(JsonParser parser, JavaType[] argTypes) throws IOException {
+        List<Object> args = new ArrayList<>(argTypes != null ? argTypes.length : 4);
+        int index = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            JavaType argType = argTypes != null && index < argTypes.length ? argTypes[index] : OBJECT_TYPE;
+            args.add(parser.currentToken() == JsonToken.VALUE_NULL ? null : OBJECT_MAPPER.readValue(parser, argType));
+            index++;
+        }
+        return args.toArray();
+    }
+
+    private Class<?>[] readClasses(JsonParser parser) throws IOException {
+        List<Class<?>> classes = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            classes.add(resolveClass(parser.getText()));
+        }
+        return classes.toArray(new Class<?>[0]);
+    }
+
+    /**
+     * 参数类型：只携带方法 id 的请求从方法解析器获取（含泛型），否则使用请求中的参数类型
+     *
+     * @param rpcRequest
+     * @return
+     */
+    private JavaType[] resolveArgTypes(RpcRequest rpcRequest) {
+        if (rpcRequest.getParameterTypes() == null && rpcRequest.getMethodId() != MethodIdUtils.NO_METHOD_ID) {
+            Method serviceMethod = methodResolver.getMethod(rpcRequest.getMethodId());
+            if (serviceMethod == null) {
+                return null;
             }
+            return PARAMETER_TYPE_CACHE.computeIfAbsent(serviceMethod, method -> {
+                Type[] genericParameterTypes = method.getGenericParameterTypes();
+                JavaType[] javaTypes = new JavaType[genericParameterTypes.length];
+                for (int i = 0; i < genericParameterTypes.length; i++) {
+                    javaTypes[i] = TYPE_FACTORY.constructType(genericParameterTypes[i]);
+                }
+                return javaTypes;
+            });
         }
-        return type.cast(rpcRequest);
+        Class<?>[] parameterTypes = rpcRequest.getParameterTypes();
+        if (parameterTypes == null) {
+            return null;
+        }
+        JavaType[] javaTypes = new JavaType[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            javaTypes[i] = TYPE_FACTORY.constructType(parameterTypes[i]);
+        }
+        return javaTypes;
     }
 
     /**
-     * 由于 Object 的原始对象会被擦除，导致反序列化时会被作为 LinkedHashMap 无法转换成原始对象，因此这里做了特殊处理
+     * 响应数据类型：优先使用泛型类型
      *
-     * @param rpcResponse rpc 响应
-     * @param type        类型
-     * @return {@link T}
-     * @throws IOException IO异常
+     * @param rpcResponse
+     * @return
+     * @throws IOException 泛型类型名无法解析
      */
-    private <T> T handleResponse(RpcResponse rpcResponse, Class<T> type) throws IOException {
-        // 处理响应数据
-        byte[] dataBytes = OBJECT_MAPPER.writeValueAsBytes(rpcResponse.getData());
-        rpcResponse.setData(OBJECT_MAPPER.readValue(dataBytes, rpcResponse.getDataType()));
-        return type.cast(rpcResponse);
+    private JavaType resolveDataType(RpcResponse rpcResponse) throws IOException {
+        String genericTypeName = rpcResponse.getDataGenericType();
+        if (genericTypeName != null) {
+            JavaType javaType = GENERIC_TYPE_CACHE.get(genericTypeName);
+            if (javaType != null) {
+                return javaType;
+            }
+            try {
+                javaType = TYPE_FACTORY.constructFromCanonical(genericTypeName);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("泛型类型解析失败：" + genericTypeName, e);
+            }
+            if (GENERIC_TYPE_CACHE.size() < MAX_GENERIC_TYPE_CACHE_SIZE) {
+                GENERIC_TYPE_CACHE.putIfAbsent(genericTypeName, javaType);
+            }
+            return javaType;
+        }
+        if (rpcResponse.getDataType() != null) {
+            return TYPE_FACTORY.constructType(rpcResponse.getDataType());
+        }
+        return OBJECT_TYPE;
+    }
+
+    private Class<?> resolveClass(String className) throws IOException {
+        try {
+            return ClassResolver.resolve(className);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("类不存在：" + className, e);
+        }
+    }
+
+    private static void writeStringField(JsonGenerator generator, String fieldName, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(fieldName, value);
+        }
+    }
+
+    private static void expectStartObject(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IOException("JSON 消息格式错误，应为对象：" + parser.currentToken());
+        }
     }
 }
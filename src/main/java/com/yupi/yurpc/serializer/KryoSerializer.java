@@ -1,45 +1,235 @@
 package com.yupi.yurpc.serializer;
 
+import cn.hutool.core.util.StrUtil;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.DefaultSerializers;
+import com.esotericsoftware.kryo.util.Pool;
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
 
 /**
  * Kryo 序列化器
+ * Kryo、Output、Input 均通过对象池复用（不依赖 ThreadLocal，虚拟线程下也不会为每个线程创建实例）
+ * 配置的业务类以及（开启内置注册时）RPC 模型类、常用 JDK 类型使用固定 id 预先注册，消息中只写注册 id 而不写完整类名；
+ * 注册会改变消息格式，未做相同注册的节点无法解析，因此内置注册默认关闭
  *
  * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
  * @learn <a href="https://codefather.cn">编程宝典</a>
  * @from <a href="https://yupi.icu">编程导航知识星球</a>
  */
 public class KryoSerializer implements Serializer {
+
     /**
-     * kryo 线程不安全，使用 ThreadLocal 保证每个线程只有一个 Kryo
+     * 池中最多保留的对象数，超出的归还对象直接丢弃
      */
-    private static final ThreadLocal<Kryo> KRYO_THREAD_LOCAL = ThreadLocal.withInitial(() -> {
-        Kryo kryo = new Kryo();
-        // 设置动态动态序列化和反序列化类，不提前注册所有类（可能有安全问题）
-        kryo.setRegistrationRequired(false);
-        return kryo;
-    });
+    private static final int POOL_MAX_CAPACITY = 64;
+
+    /**
+     * 缓冲区初始大小
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * 可归还到池中的最大缓冲区（避免偶发的大消息长期占用内存）
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * 内置注册类的起始 id（0 ~ 9 为 Kryo 默认注册的基本类型和 String）
+     */
+    private static final int BUILTIN_REGISTRATION_ID = 100;
+
+    /**
+     * 业务类注册的起始 id
+     */
+    private static final int USER_REGISTRATION_ID = 200;
+
+    /**
+     * 内置注册类，顺序即注册 id，只能在末尾追加
+     */
+    private static final Class<?>[] BUILTIN_CLASSES = {
+            RpcRequest.class, RpcResponse.class,
+            Object[].class, Class.class, Class[].class, String[].class,
+            byte[].class, int[].class, long[].class, double[].class,
+            ArrayList.class, LinkedList.class, HashMap.class, LinkedHashMap.class, TreeMap.class,
+            HashSet.class, LinkedHashSet.class, TreeSet.class,
+            Date.class, BigDecimal.class, BigInteger.class
+    };
+
+    private static final Pool<Kryo> KRYO_POOL = new Pool<>(true, false, POOL_MAX_CAPACITY) {
+        @Override
+        protected Kryo create() {
+            return createKryo();
+        }
+    };
+
+    private static final Pool<Output> OUTPUT_POOL = new Pool<>(true, false, POOL_MAX_CAPACITY) {
+        @Override
+        protected Output create() {
+            return new Output(BUFFER_SIZE, -1);
+        }
+    };
+
+    /**
+     * 流式读取用的 Input（自带缓冲区）
+     */
+    private static final Pool<Input> INPUT_POOL = new Pool<>(true, false, POOL_MAX_CAPACITY) {
+        @Override
+        protected Input create() {
+            return new Input(BUFFER_SIZE);
+        }
+    };
+
+    /**
+     * 直接读取字节数组用的 Input（不需要自己的缓冲区，归还前改为指向空数组，不持有调用方的数组）
+     */
+    private static final Pool<Input> BYTES_INPUT_POOL = new Pool<>(true, false, POOL_MAX_CAPACITY) {
+        @Override
+        protected Input create() {
+            return new Input();
+        }
+    };
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
 
     @Override
     public <T> byte[] serialize(T obj) {
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        Output output = new Output(byteArrayOutputStream);
-        KRYO_THREAD_LOCAL.get().writeObject(output, obj);
-        output.close();
-        return byteArrayOutputStream.toByteArray();
+        Kryo kryo = KRYO_POOL.obtain();
+        Output output = OUTPUT_POOL.obtain();
+        try {
+            output.reset();
+            kryo.writeObject(output, obj);
+            return output.toBytes();
+        } finally {
+            freeOutput(output);
+            KRYO_POOL.free(kryo);
+        }
+    }
+
+    @Override
+    public <T> void serialize(T obj, OutputStream outputStream) {
+        Kryo kryo = KRYO_POOL.obtain();
+        Output output = OUTPUT_POOL.obtain();
+        try {
+            output.setOutputStream(outputStream);
+            kryo.writeObject(output, obj);
+            output.flush();
+        } finally {
+            output.setOutputStream(null);
+            freeOutput(output);
+            KRYO_POOL.free(kryo);
+        }
     }
 
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> classType) {
-        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bytes);
-        Input input = new Input(byteArrayInputStream);
-        T result = KRYO_THREAD_LOCAL.get().readObject(input, classType);
-        input.close();
-        return result;
+        Kryo kryo = KRYO_POOL.obtain();
+        Input input = BYTES_INPUT_POOL.obtain();
+        try {
+            input.setBuffer(bytes);
+            return kryo.readObject(input, classType);
+        } finally {
+            input.setBuffer(EMPTY_BYTES);
+            BYTES_INPUT_POOL.free(input);
+            KRYO_POOL.free(kryo);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> classType) {
+        Kryo kryo = KRYO_POOL.obtain();
+        Input input = INPUT_POOL.obtain();
+        try {
+            input.setInputStream(inputStream);
+            return kryo.readObject(input, classType);
+        } finally {
+            input.setInputStream(null);
+            INPUT_POOL.free(input);
+            KRYO_POOL.free(kryo);
+        }
+    }
+
+    /**
+     * 序列化任意对象（连同类型信息一起写入，反序列化时无需指定类型）
+     *
+     * @param obj
+     * @return
+     */
+    public byte[] serializeClassAndObject(Object obj) {
+        Kryo kryo = KRYO_POOL.obtain();
+        Output output = OUTPUT_POOL.obtain();
+        try {
+            output.reset();
+            kryo.writeClassAndObject(output, obj);
+            return output.toBytes();
+        } finally {
+            freeOutput(output);
+            KRYO_POOL.free(kryo);
+        }
+    }
+
+    /**
+     * 反序列化 {@link #serializeClassAndObject(Object)} 写入的对象
+     *
+     * @param bytes
+     * @return
+     */
+    public Object deserializeClassAndObject(byte[] bytes) {
+        Kryo kryo = KRYO_POOL.obtain();
+        Input input = BYTES_INPUT_POOL.obtain();
+        try {
+            input.setBuffer(bytes);
+            return kryo.readClassAndObject(input);
+        } finally {
+            input.setBuffer(EMPTY_BYTES);
+            BYTES_INPUT_POOL.free(input);
+            KRYO_POOL.free(kryo);
+        }
+    }
+
+    private static void freeOutput(Output output) {
+        if (output.getBuffer().length <= MAX_POOLED_BUFFER_SIZE) {
+            OUTPUT_POOL.free(output);
+        }
+    }
+
+    /**
+     * 创建 Kryo 实例并注册类
+     * 服务提供者和消费者必须配置相同的业务类列表（顺序一致）和相同的内置注册开关，否则注册 id 对应的类不同
+     *
+     * @return
+     */
+    private static Kryo createKryo() {
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        Kryo kryo = new Kryo();
+        // 未注册的类仍可动态序列化（写入完整类名），不强制提前注册所有类
+        kryo.setRegistrationRequired(false);
+        if (rpcConfig.isKryoBuiltinRegistration()) {
+            int registrationId = BUILTIN_REGISTRATION_ID;
+            for (Class<?> builtinClass : BUILTIN_CLASSES) {
+                kryo.register(builtinClass, registrationId++);
+            }
+            // UUID 没有默认序列化器（字段序列化需要反射访问 java.base 私有字段）
+            kryo.register(UUID.class, new DefaultSerializers.UUIDSerializer(), registrationId);
+        }
+        int registrationId = USER_REGISTRATION_ID;
+        for (String className : StrUtil.splitTrim(rpcConfig.getKryoRegisteredClasses(), ',')) {
+            try {
+                kryo.register(Class.forName(className), registrationId++);
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException("Kryo 注册类不存在：" + className, e);
+            }
+        }
+        return kryo;
     }
 }
@@ -0,0 +1,28 @@
+package com.yupi.yurpc.serializer;
+
+import java.lang.reflect.Method;
+
+/**
+ * 方法解析器：按方法 id 查找服务方法
+ * 只携带方法 id 的请求没有参数类型，序列化器通过它获取参数的声明类型，由服务提供者注入
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+@FunctionalInterface
+public interface MethodResolver {
+
+    /**
+     * 不解析任何方法
+     */
+    MethodResolver NONE = methodId -> null;
+
+    /**
+     * 获取方法
+     *
+     * @param methodId
+     * @return 未知的方法 id 返回 null
+     */
+    Method getMethod(int methodId);
+}
@@ -0,0 +1,284 @@
+package com.yupi.yurpc.serializer;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Internal;
+import com.google.protobuf.Message;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.serializer.proto.ExceptionValue;
+import com.yupi.yurpc.serializer.proto.MessageValue;
+import com.yupi.yurpc.serializer.proto.RpcRequestEnvelope;
+import com.yupi.yurpc.serializer.proto.RpcResponseEnvelope;
+import com.yupi.yurpc.serializer.proto.Value;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Protobuf 序列化器
+ * RpcRequest / RpcResponse 编码为 protobuf 信封（见 rpc_envelope.proto），
+ * protobuf 消息类型的参数和返回值直接写入消息字节，常用标量原生编码，其他类型回退到 Kryo
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class ProtobufSerializer implements Serializer {
+
+    /**
+     * 非 protobuf 类型的参数和返回值使用 Kryo 序列化
+     */
+    private static final KryoSerializer FALLBACK_SERIALIZER = new KryoSerializer();
+
+    /**
+     * protobuf 消息类名 => 解析器
+     */
+    private static final Map<String, Parser<? extends MessageLite>> PARSER_CACHE = new ConcurrentHashMap<>();
+
+    @Override
+    public <T> byte[] serialize(T obj) throws IOException {
+        return toProtobuf(obj).toByteArray();
+    }
+
+    @Override
+    public <T> void serialize(T obj, OutputStream outputStream) throws IOException {
+        toProtobuf(obj).writeTo(outputStream);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> classType) throws IOException {
+        if (classType == RpcRequest.class) {
+            return classType.cast(fromEnvelope(RpcRequestEnvelope.parseFrom(bytes)));
+        }
+        if (classType == RpcResponse.class) {
+            return classType.cast(fromEnvelope(RpcResponseEnvelope.parseFrom(bytes)));
+        }
+        return classType.cast(getParser(classType).parseFrom(bytes));
+    }
+
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> classType) throws IOException {
+        if (classType == RpcRequest.class) {
+            return classType.cast(fromEnvelope(RpcRequestEnvelope.parseFrom(inputStream)));
+        }
+        if (classType == RpcResponse.class) {
+            return classType.cast(fromEnvelope(RpcResponseEnvelope.parseFrom(inputStream)));
+        }
+        return classType.cast(getParser(classType).parseFrom(inputStream));
+    }
+
+    private MessageLite toProtobuf(Object obj) throws IOException {
+        if (obj instanceof RpcRequest) {
+            return toEnvelope((RpcRequest) obj);
+        }
+        if (obj instanceof RpcResponse) {
+            return toEnvelope((RpcResponse) obj);
+        }
+        if (obj instanceof MessageLite) {
+            return (MessageLite) obj;
+        }
+        throw new IOException("protobuf 序列化器不支持该类型：" + (obj == null ? null : obj.getClass().getName()));
+    }
+
+    private RpcRequestEnvelope toEnvelope(RpcRequest rpcRequest) {
+        RpcRequestEnvelope.Builder builder = RpcRequestEnvelope.newBuilder()
+                .setMethodId(rpcRequest.getMethodId());
+        if (rpcRequest.getServiceName() != null) {
+            builder.setServiceName(rpcRequest.getServiceName());
+        }
+        if (rpcRequest.getMethodName() != null) {
+            builder.setMethodName(rpcRequest.getMethodName());
+        }
+        if (rpcRequest.getServiceVersion() != null) {
+            builder.setServiceVersion(rpcRequest.getServiceVersion());
+        }
+        if (rpcRequest.getParameterTypes() != null) {
+            for (Class<?> parameterType : rpcRequest.getParameterTypes()) {
+                builder.addParameterTypes(ClassResolver.toDescriptor(parameterType));
+            }
+        }
+        if (rpcRequest.getArgs() != null) {
+            for (Object arg : rpcRequest.getArgs()) {
+                builder.addArgs(toValue(arg));
+            }
+        }
+        return builder.build();
+    }
+
+    private RpcRequest fromEnvelope(RpcRequestEnvelope envelope) throws IOException {
+        RpcRequest rpcRequest = new RpcRequest();
+        rpcRequest.setServiceName(emptyToNull(envelope.getServiceName()));
+        rpcRequest.setMethodName(emptyToNull(envelope.getMethodName()));
+        rpcRequest.setServiceVersion(emptyToNull(envelope.getServiceVersion()));
+        rpcRequest.setMethodId(envelope.getMethodId());
+        // 只携带方法 id 的请求没有参数类型
+        if (envelope.getParameterTypesCount() > 0 || rpcRequest.getServiceName() != null) {
+            Class<?>[] parameterTypes = new Class<?>[envelope.getParameterTypesCount()];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                parameterTypes[i] = resolveClass(envelope.getParameterTypes(i));
+            }
+            rpcRequest.setParameterTypes(parameterTypes);
+        }
+        Object[] args = new Object[envelope.getArgsCount()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = fromValue(envelope.getArgs(i));
+        }
+        rpcRequest.setArgs(args);
+        return rpcRequest;
+    }
+
+    private RpcResponseEnvelope toEnvelope(RpcResponse rpcResponse) {
+        RpcResponseEnvelope.Builder builder = RpcResponseEnvelope.newBuilder()
+                .setData(toValue(rpcResponse.getData()));
+        if (rpcResponse.getDataType() != null) {
+            builder.setDataType(ClassResolver.toDescriptor(rpcResponse.getDataType()));
+        }
+        if (rpcResponse.getMessage() != null) {
+            builder.setMessage(rpcResponse.getMessage());
+        }
+        Exception exception = rpcResponse.getException();
+        if (exception != null) {
+            ExceptionValue.Builder exceptionBuilder = ExceptionValue.newBuilder()
+                    .setTypeName(exception.getClass().getName());
+            if (exception.getMessage() != null) {
+                exceptionBuilder.setMessage(exception.getMessage());
+            }
+            builder.setException(exceptionBuilder);
+        }
+        return builder.build();
+    }
+
+    private RpcResponse fromEnvelope(RpcResponseEnvelope envelope) throws IOException {
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setData(fromValue(envelope.getData()));
+        String dataType = emptyToNull(envelope.getDataType());
+        rpcResponse.setDataType(dataType != null ? resolveClass(dataType) : null);
+        rpcResponse.setMessage(emptyToNull(envelope.getMessage()));
+        if (envelope.hasException()) {
+            rpcResponse.setException(toException(envelope.getException()));
+        }
+        return rpcResponse;
+    }
+
+    /**
+     * 参数或返回值编码
+     *
+     * @param obj
+     * @return
+     */
+    private Value toValue(Object obj) {
+        Value.Builder builder = Value.newBuilder();
+        if (obj == null) {
+            // 不设置任何字段表示 null
+            return builder.build();
+        }
+        if (obj instanceof String) {
+            builder.setStringValue((String) obj);
+        } else if (obj instanceof Integer) {
+            builder.setIntValue((Integer) obj);
+        } else if (obj instanceof Long) {
+            builder.setLongValue((Long) obj);
+        } else if (obj instanceof Double) {
+            builder.setDoubleValue((Double) obj);
+        } else if (obj instanceof Float) {
+            builder.setFloatValue((Float) obj);
+        } else if (obj instanceof Boolean) {
+            builder.setBoolValue((Boolean) obj);
+        } else if (obj instanceof byte[]) {
+            builder.setBytesValue(ByteString.copyFrom((byte[]) obj));
+        } else if (obj instanceof MessageLite) {
+            builder.setMessageValue(MessageValue.newBuilder()
+                    .setTypeName(obj.getClass().getName())
+                    .setPayload(((MessageLite) obj).toByteString()));
+        } else {
+            builder.setKryoValue(ByteString.copyFrom(FALLBACK_SERIALIZER.serializeClassAndObject(obj)));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 参数或返回值解码
+     *
+     * @param value
+     * @return
+     * @throws IOException
+     */
+    private Object fromValue(Value value) throws IOException {
+        switch (value.getKindCase()) {
+            case STRINGVALUE:
+                return value.getStringValue();
+            case INTVALUE:
+                return value.getIntValue();
+            case LONGVALUE:
+                return value.getLongValue();
+            case DOUBLEVALUE:
+                return value.getDoubleValue();
+            case FLOATVALUE:
+                return value.getFloatValue();
+            case BOOLVALUE:
+                return value.getBoolValue();
+            case BYTESVALUE:
+                return value.getBytesValue().toByteArray();
+            case MESSAGEVALUE:
+                MessageValue messageValue = value.getMessageValue();
+                return getParser(resolveClass(messageValue.getTypeName())).parseFrom(messageValue.getPayload());
+            case KRYOVALUE:
+                return FALLBACK_SERIALIZER.deserializeClassAndObject(value.getKryoValue().toByteArray());
+            case KIND_NOT_SET:
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 还原异常：优先使用异常类的 (String) 构造器，无法还原时包装为 RuntimeException
+     *
+     * @param exceptionValue
+     * @return
+     */
+    private Exception toException(ExceptionValue exceptionValue) {
+        String message = emptyToNull(exceptionValue.getMessage());
+        try {
+            Class<?> exceptionClass = resolveClass(exceptionValue.getTypeName());
+            if (Exception.class.isAssignableFrom(exceptionClass)) {
+                return (Exception) exceptionClass.getConstructor(String.class).newInstance(message);
+            }
+        } catch (Exception ignored) {
+            // 消费端没有该异常类或没有 (String) 构造器
+        }
+        return new RuntimeException(exceptionValue.getTypeName() + ": " + message);
+    }
+
+    /**
+     * 获取 protobuf 消息类的解析器（每个类只解析一次）
+     *
+     * @param messageClass
+     * @return
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    private Parser<? extends MessageLite> getParser(Class<?> messageClass) throws IOException {
+        if (!MessageLite.class.isAssignableFrom(messageClass)) {
+            throw new IOException("protobuf 序列化器不支持该类型：" + messageClass.getName());
+        }
+        return PARSER_CACHE.computeIfAbsent(messageClass.getName(),
+                key -> Internal.getDefaultInstance((Class<? extends MessageLite>) messageClass).getParserForType());
+    }
+
+    private Class<?> resolveClass(String className) throws IOException {
+        try {
+            return ClassResolver.resolve(className);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("类不存在：" + className, e);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -1,6 +1,8 @@
 package com.yupi.yurpc.serializer;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * 序列化器接口
@@ -21,6 +23,18 @@ public interface Serializer {
      */
     <T> byte[] serialize(T object) throws IOException;
 
+    /**
+     * 序列化（直接写入输出流，避免中间字节数组）
+     *
+     * @param object
+     * @param outputStream
+     * @param <T>
+     * @throws IOException
+     */
+    default <T> void serialize(T object, OutputStream outputStream) throws IOException {
+        outputStream.write(serialize(object));
+    }
+
     /**
      * 反序列化
      *
@@ -31,4 +45,17 @@ public interface Serializer {
      * @throws IOException
      */
     <T> T deserialize(byte[] bytes, Class<T> tClass) throws IOException;
+
+    /**
+     * 反序列化（直接从输入流读取，避免先拷贝出完整的字节数组）
+     *
+     * @param inputStream
+     * @param tClass
+     * @param <T>
+     * @return
+     * @throws IOException
+     */
+    default <T> T deserialize(InputStream inputStream, Class<T> tClass) throws IOException {
+        return deserialize(inputStream.readAllBytes(), tClass);
+    }
 }
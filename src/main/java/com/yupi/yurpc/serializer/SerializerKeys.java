@@ -13,5 +13,7 @@ public interface SerializerKeys {
     String JSON = "json";
     String KRYO = "kryo";
     String HESSIAN = "hessian";
+    String PROTOBUF = "protobuf";
+    String BINARY = "binary";
 
 }
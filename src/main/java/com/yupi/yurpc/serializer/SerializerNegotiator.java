@@ -0,0 +1,158 @@
+package com.yupi.yurpc.serializer;
+
+import cn.hutool.core.util.StrUtil;
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.model.ServiceMetaInfo;
+import com.yupi.yurpc.protocol.ProtocolMessageSerializerEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 序列化器协商
+ * 服务提供者发布支持的序列化器，消费者按以下优先级为每次调用选择序列化器：
+ * 1. 方法级覆盖（服务名#方法名=序列化器）
+ * 2. 服务级覆盖（服务名=序列化器）
+ * 3. 消费者偏好列表中第一个提供者也支持的序列化器
+ * 4. 全局序列化器（提供者未发布或没有共同的序列化器时）
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+@Slf4j
+public class SerializerNegotiator {
+
+    /**
+     * 方法级覆盖的服务名与方法名分隔符
+     */
+    public static final String METHOD_SEPARATOR = "#";
+
+    /**
+     * 序列化器列表解析缓存：配置原文 => 序列化器列表
+     */
+    private static final Map<String, List<String>> SERIALIZERS_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 覆盖配置解析缓存：配置原文 => （服务名 或 服务名#方法名 => 序列化器）
+     */
+    private static final Map<String, Map<String, String>> OVERRIDES_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 获取支持的序列化器（按优先级排序），服务提供者发布该列表，消费者按该顺序协商
+     * 未配置时只支持全局序列化器；全局序列化器始终包含在内
+     *
+     * @param rpcConfig
+     * @return
+     */
+    public static List<String> getSupportedSerializers(RpcConfig rpcConfig) {
+        String serializers = StrUtil.nullToEmpty(rpcConfig.getSerializers());
+        String cacheKey = serializers + "|" + rpcConfig.getSerializer();
+        return SERIALIZERS_CACHE.computeIfAbsent(cacheKey, key -> {
+            List<String> result = new ArrayList<>(StrUtil.splitTrim(serializers, ','));
+            if (!result.contains(rpcConfig.getSerializer())) {
+                result.add(rpcConfig.getSerializer());
+            }
+            for (String serializer : result) {
+                if (ProtocolMessageSerializerEnum.getEnumByValue(serializer) == null) {
+                    throw new RuntimeException("序列化器不存在：" + serializer);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        });
+    }
+
+    /**
+     * 为一次调用选择序列化器
+     *
+     * @param rpcConfig
+     * @param serviceName
+     * @param methodName
+     * @param serviceMetaInfo 选中的服务提供者
+     * @return 序列化器键名
+     */
+    public static String select(RpcConfig rpcConfig, String serviceName, String methodName, ServiceMetaInfo serviceMetaInfo) {
+        return select(rpcConfig, serviceName, methodName, serviceMetaInfo.getSerializers());
+    }
+
+    /**
+     * 按服务提供者发布的序列化器列表选择序列化器（结果只取决于配置和该列表，调用方可以缓存）
+     *
+     * @param rpcConfig
+     * @param serviceName
+     * @param methodName
+     * @param providerSerializers 提供者发布的序列化器，旧版本提供者为 null
+     * @return 序列化器键名
+     */
+    public static String select(RpcConfig rpcConfig, String serviceName, String methodName, List<String> providerSerializers) {
+        // 1. 方法级、服务级覆盖，提供者不支持时继续协商
+        String override = getOverride(rpcConfig, serviceName, methodName);
+        if (override != null) {
+            if (providerSerializers == null || providerSerializers.contains(override)) {
+                return override;
+            }
+            log.debug("provider serializers {} do not include {}, negotiate instead", providerSerializers, override);
+        }
+        // 2. 提供者未发布序列化器（旧版本提供者）
+        if (providerSerializers == null || providerSerializers.isEmpty()) {
+            return rpcConfig.getSerializer();
+        }
+        // 3. 按消费者的优先级选择第一个共同支持的序列化器
+        for (String serializer : getSupportedSerializers(rpcConfig)) {
+            if (providerSerializers.contains(serializer)) {
+                return serializer;
+            }
+        }
+        return rpcConfig.getSerializer();
+    }
+
+    /**
+     * 获取覆盖配置中的序列化器，方法级优先
+     *
+     * @param rpcConfig
+     * @param serviceName
+     * @param methodName
+     * @return 未配置时返回 null
+     */
+    private static String getOverride(RpcConfig rpcConfig, String serviceName, String methodName) {
+        String serializerOverrides = rpcConfig.getSerializerOverrides();
+        if (StrUtil.isBlank(serializerOverrides) || serviceName == null) {
+            return null;
+        }
+        Map<String, String> overrides = OVERRIDES_CACHE.computeIfAbsent(serializerOverrides, SerializerNegotiator::parseOverrides);
+        if (methodName != null) {
+            String methodOverride = overrides.get(serviceName + METHOD_SEPARATOR + methodName);
+            if (methodOverride != null) {
+                return methodOverride;
+            }
+        }
+        return overrides.get(serviceName);
+    }
+
+    /**
+     * 解析覆盖配置，格式：服务名=序列化器,服务名#方法名=序列化器
+     *
+     * @param serializerOverrides
+     * @return
+     */
+    private static Map<String, String> parseOverrides(String serializerOverrides) {
+        Map<String, String> overrides = new HashMap<>();
+        for (String item : StrUtil.splitTrim(serializerOverrides, ',')) {
+            int index = item.lastIndexOf('=');
+            if (index <= 0 || index == item.length() - 1) {
+                throw new RuntimeException("序列化器覆盖配置格式错误：" + item);
+            }
+            String serializer = item.substring(index + 1).trim();
+            if (ProtocolMessageSerializerEnum.getEnumByValue(serializer) == null) {
+                throw new RuntimeException("序列化器不存在：" + serializer);
+            }
+            overrides.put(item.substring(0, index).trim(), serializer);
+        }
+        return overrides;
+    }
+}
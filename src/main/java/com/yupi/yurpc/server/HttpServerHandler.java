@@ -3,16 +3,16 @@ package com.yupi.yurpc.server;
 import com.yupi.yurpc.RpcApplication;
 import com.yupi.yurpc.model.RpcRequest;
 import com.yupi.yurpc.model.RpcResponse;
-import com.yupi.yurpc.registry.LocalRegistry;
 import com.yupi.yurpc.serializer.Serializer;
 import com.yupi.yurpc.serializer.SerializerFactory;
+import com.yupi.yurpc.server.invoker.ServiceInvoker;
+import com.yupi.yurpc.server.invoker.ServiceInvokerRegistry;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
 
 /**
  * HTTP 请求处理器
@@ -52,13 +52,13 @@ public class HttpServerHandler implements Handler<HttpServerRequest> {
             }
 
             try {
-                // 获取要调用的服务实现类，通过反射调用
-                Class<?> implClass = LocalRegistry.get(rpcRequest.getServiceName());
-                Method method = implClass.getMethod(rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
-                Object result = method.invoke(implClass.newInstance(), rpcRequest.getArgs());
+                // 获取预先解析好的服务调用器
+                ServiceInvoker serviceInvoker = ServiceInvokerRegistry.get(rpcRequest);
+                Object result = serviceInvoker.invoke(rpcRequest.getArgs());
                 // 封装返回结果
                 rpcResponse.setData(result);
-                rpcResponse.setDataType(method.getReturnType());
+                rpcResponse.setDataType(serviceInvoker.getReturnType());
+                rpcResponse.setDataGenericType(serviceInvoker.getGenericReturnTypeName());
                 rpcResponse.setMessage("ok");
             } catch (Exception e) {
                 e.printStackTrace();
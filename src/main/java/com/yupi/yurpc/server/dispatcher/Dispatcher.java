@@ -0,0 +1,21 @@
+package com.yupi.yurpc.server.dispatcher;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 请求分发器（服务端使用，决定服务方法在哪个线程上执行）
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public interface Dispatcher {
+
+    /**
+     * 分发请求处理任务
+     *
+     * @param task 请求处理任务
+     * @throws RejectedExecutionException 分发器已满载，拒绝处理
+     */
+    void dispatch(Runnable task) throws RejectedExecutionException;
+}
@@ -0,0 +1,28 @@
+package com.yupi.yurpc.server.dispatcher;
+
+import com.yupi.yurpc.spi.SpiLoader;
+
+/**
+ * 请求分发器工厂（工厂模式，用于获取分发器对象）
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class DispatcherFactory {
+
+    static {
+        SpiLoader.load(Dispatcher.class);
+    }
+
+    /**
+     * 获取实例
+     *
+     * @param key
+     * @return
+     */
+    public static Dispatcher getInstance(String key) {
+        return SpiLoader.getInstance(Dispatcher.class, key);
+    }
+
+}
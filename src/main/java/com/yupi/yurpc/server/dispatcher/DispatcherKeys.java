@@ -0,0 +1,27 @@
+package com.yupi.yurpc.server.dispatcher;
+
+/**
+ * 请求分发器键名常量
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public interface DispatcherKeys {
+
+    /**
+     * 直接在事件循环线程上执行
+     */
+    String EVENT_LOOP = "eventLoop";
+
+    /**
+     * 有界工作线程池
+     */
+    String WORKER_POOL = "workerPool";
+
+    /**
+     * 每个请求一个虚拟线程
+     */
+    String VIRTUAL_THREAD = "virtualThread";
+
+}
@@ -0,0 +1,24 @@
+package com.yupi.yurpc.server.dispatcher;
+
+import com.yupi.yurpc.telemetry.TelemetryManager;
+
+/**
+ * 事件循环分发器
+ * 直接在 Vert.x 事件循环线程上执行，适合无阻塞、耗时极短的服务方法
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class EventLoopDispatcher implements Dispatcher {
+
+    public EventLoopDispatcher() {
+        // 不排队也不拒绝，积压深度恒为 0
+        TelemetryManager.registerDispatcherGauge(DispatcherKeys.EVENT_LOOP, () -> 0);
+    }
+
+    @Override
+    public void dispatch(Runnable task) {
+        task.run();
+    }
+}
@@ -0,0 +1,49 @@
+package com.yupi.yurpc.server.dispatcher;
+
+import com.yupi.yurpc.telemetry.TelemetryManager;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 虚拟线程分发器
+ * 每个请求在独立的虚拟线程中执行，阻塞调用只会挂起虚拟线程，不占用平台线程
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class VirtualThreadDispatcher implements Dispatcher {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("yu-rpc-vt-", 0).factory());
+
+    /**
+     * 正在执行的请求数（虚拟线程没有排队，以此作为积压深度）
+     */
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    public VirtualThreadDispatcher() {
+        TelemetryManager.registerDispatcherGauge(DispatcherKeys.VIRTUAL_THREAD, inFlight::get);
+    }
+
+    @Override
+    public void dispatch(Runnable task) {
+        inFlight.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            TelemetryManager.recordDispatcherRejection(DispatcherKeys.VIRTUAL_THREAD);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.yupi.yurpc.server.dispatcher;
+
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.config.TcpConfig;
+import com.yupi.yurpc.telemetry.TelemetryManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 工作线程池分发器
+ * 服务方法在有界线程池中执行，慢调用不会阻塞事件循环；队列满时拒绝请求
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+@Slf4j
+public class WorkerPoolDispatcher implements Dispatcher {
+
+    private final ThreadPoolExecutor executor;
+
+    public WorkerPoolDispatcher() {
+        TcpConfig tcpConfig = RpcApplication.getRpcConfig().getTcp();
+        int threads = Math.max(1, tcpConfig.getWorkerThreads());
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, tcpConfig.getWorkerQueueCapacity())),
+                task -> {
+                    Thread thread = new Thread(task, "yu-rpc-worker-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        TelemetryManager.registerDispatcherGauge(DispatcherKeys.WORKER_POOL, () -> executor.getQueue().size());
+        log.info("worker pool dispatcher init, threads = {}, queueCapacity = {}",
+                threads, tcpConfig.getWorkerQueueCapacity());
+    }
+
+    @Override
+    public void dispatch(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            TelemetryManager.recordDispatcherRejection(DispatcherKeys.WORKER_POOL);
+            throw e;
+        }
+    }
+}
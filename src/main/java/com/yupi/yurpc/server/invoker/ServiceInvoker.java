@@ -0,0 +1,137 @@
+package com.yupi.yurpc.server.invoker;
+
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * 服务方法调用器
+ * 启动时解析一次方法并绑定单例服务实例，调用时直接走 MethodHandle，无需反射查找和创建实例
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+@Getter
+public class ServiceInvoker {
+
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * 方法 id
+     */
+    private final int methodId;
+
+    private final String serviceName;
+
+    private final Method method;
+
+    private final Class<?>[] parameterTypes;
+
+    private final Class<?> returnType;
+
+    /**
+     * 返回值（异步方法为 CompletionStage 的结果）的泛型类型名，非泛型时为 null
+     */
+    private final String genericReturnTypeName;
+
+    /**
+     * 是否为流式方法（返回 Flow.Publisher，结果按元素逐帧发送）
+     */
+    private final boolean streaming;
+
+    /**
+     * 已绑定服务实例、参数展开后的方法句柄，类型为 (Object[]) -> Object
+     */
+    @Getter(lombok.AccessLevel.NONE)
+    private final MethodHandle methodHandle;
+
+    public ServiceInvoker(int methodId, String serviceName, Method method, Object serviceInstance)
+            throws IllegalAccessException {
+        this.methodId = methodId;
+        this.serviceName = serviceName;
+        this.method = method;
+        this.parameterTypes = method.getParameterTypes();
+        this.returnType = method.getReturnType();
+        this.genericReturnTypeName = resolveGenericReturnTypeName(method);
+        this.streaming = Flow.Publisher.class.isAssignableFrom(method.getReturnType());
+        try {
+            // 实现类不是 public 时（如内部类），需要放开访问检查
+            method.setAccessible(true);
+        } catch (RuntimeException ignored) {
+            // 无法放开时按 public 访问规则解析
+        }
+        this.methodHandle = MethodHandles.lookup().unreflect(method)
+                .bindTo(serviceInstance)
+                .asSpreader(Object[].class, parameterTypes.length)
+                .asType(INVOKE_TYPE);
+    }
+
+    /**
+     * 调用服务方法
+     *
+     * @param args 参数
+     * @return 返回值
+     * @throws Exception 服务方法抛出的异常（不再包装为 InvocationTargetException）
+     */
+    public Object invoke(Object[] args) throws Exception {
+        try {
+            return (Object) methodHandle.invokeExact(args == null ? EMPTY_ARGS : args);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 解析返回值的泛型类型名（异步方法取 CompletionStage 的结果类型，流式方法取元素类型）
+     *
+     * @param method
+     * @return
+     */
+    private static String resolveGenericReturnTypeName(Method method) {
+        Type genericReturnType = method.getGenericReturnType();
+        if (CompletionStage.class.isAssignableFrom(method.getReturnType())
+                || Flow.Publisher.class.isAssignableFrom(method.getReturnType())) {
+            genericReturnType = genericReturnType instanceof ParameterizedType
+                    ? ((ParameterizedType) genericReturnType).getActualTypeArguments()[0]
+                    : Object.class;
+        }
+        if (genericReturnType instanceof Class) {
+            return null;
+        }
+        return TypeFactory.defaultInstance().constructType(genericReturnType).toCanonical();
+    }
+
+    /**
+     * 参数类型是否匹配
+     *
+     * @param types
+     * @return
+     */
+    public boolean matches(Class<?>[] types) {
+        if (types == null) {
+            return parameterTypes.length == 0;
+        }
+        if (types.length != parameterTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] != parameterTypes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,229 @@
+package com.yupi.yurpc.server.invoker;
+
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.registry.LocalRegistry;
+import com.yupi.yurpc.serializer.JsonSerializer;
+import com.yupi.yurpc.serializer.Serializer;
+import com.yupi.yurpc.serializer.SerializerFactory;
+import com.yupi.yurpc.serializer.SerializerKeys;
+import com.yupi.yurpc.utils.MethodIdUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 服务调用器注册中心（服务提供者使用）
+ * 每个服务只创建一个实例，每个方法只解析一次，并按方法签名分配方法 id（见 {@link MethodIdUtils}）
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+@Slf4j
+public class ServiceInvokerRegistry {
+
+    /**
+     * 服务名称 => (方法名称 => 重载方法的调用器)
+     */
+    private static final Map<String, Map<String, ServiceInvoker[]>> serviceMap = new ConcurrentHashMap<>();
+
+    /**
+     * 方法 id => 调用器（包含冲突的 id，仅在注册时修改）
+     */
+    private static final Map<Integer, ServiceInvoker> registeredInvokerMap = new HashMap<>();
+
+    /**
+     * 发生冲突的方法 id，不发布也不接受，相关方法只能按方法签名调用
+     */
+    private static final Set<Integer> conflictedMethodIds = new HashSet<>();
+
+    /**
+     * 方法 id 索引，供调用时二分查找（注册时整体替换）
+     */
+    private static volatile MethodIdIndex methodIdIndex = new MethodIdIndex(new int[0], new ServiceInvoker[0]);
+
+    static {
+        // 向 JSON 序列化器注入方法解析器，只携带方法 id 的请求按服务方法的声明类型绑定参数
+        Serializer jsonSerializer = SerializerFactory.getInstance(SerializerKeys.JSON);
+        if (jsonSerializer instanceof JsonSerializer) {
+            ((JsonSerializer) jsonSerializer).setMethodResolver(ServiceInvokerRegistry::getMethod);
+        }
+    }
+
+    /**
+     * 注册服务，解析实现类的所有公共方法
+     *
+     * @param serviceName
+     * @param implClass
+     */
+    public static synchronized void register(String serviceName, Class<?> implClass) {
+        Object serviceInstance;
+        try {
+            serviceInstance = implClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("服务实例化失败：" + implClass.getName(), e);
+        }
+        // 重复注册时先移除旧的调用器
+        registeredInvokerMap.values().removeIf(invoker -> invoker.getServiceName().equals(serviceName));
+        Map<String, List<ServiceInvoker>> methodMap = new HashMap<>();
+        for (Method method : implClass.getMethods()) {
+            if (method.getDeclaringClass() == Object.class || method.isBridge() || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            int methodId = MethodIdUtils.getMethodId(serviceName, method.getName(), method.getParameterTypes());
+            ServiceInvoker serviceInvoker;
+            try {
+                serviceInvoker = new ServiceInvoker(methodId, serviceName, method, serviceInstance);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("服务方法解析失败：" + method, e);
+            }
+            if (registeredInvokerMap.putIfAbsent(methodId, serviceInvoker) != null) {
+                log.warn("method id conflict, fallback to method signature, method = {}", method);
+                conflictedMethodIds.add(methodId);
+            }
+            methodMap.computeIfAbsent(method.getName(), key -> new ArrayList<>()).add(serviceInvoker);
+        }
+        Map<String, ServiceInvoker[]> methodInvokerMap = new HashMap<>();
+        methodMap.forEach((methodName, list) -> methodInvokerMap.put(methodName, list.toArray(new ServiceInvoker[0])));
+        serviceMap.put(serviceName, methodInvokerMap);
+        refreshMethodIdIndex();
+        log.info("service invokers registered, service = {}, methods = {}", serviceName, methodMap.size());
+    }
+
+    /**
+     * 获取服务可发布的方法 id（不含冲突的 id）
+     *
+     * @param serviceName
+     * @return
+     */
+    public static synchronized List<Integer> getMethodIds(String serviceName) {
+        List<Integer> methodIds = new ArrayList<>();
+        registeredInvokerMap.forEach((methodId, invoker) -> {
+            if (invoker.getServiceName().equals(serviceName) && !conflictedMethodIds.contains(methodId)) {
+                methodIds.add(methodId);
+            }
+        });
+        return methodIds;
+    }
+
+    /**
+     * 获取请求对应的调用器
+     * 请求只携带方法 id 时按 id 查找，否则按方法签名查找
+     *
+     * @param rpcRequest
+     * @return 调用器，不存在时抛出异常
+     */
+    public static ServiceInvoker get(RpcRequest rpcRequest) {
+        if (rpcRequest.getServiceName() == null && rpcRequest.getMethodId() != MethodIdUtils.NO_METHOD_ID) {
+            ServiceInvoker serviceInvoker = get(rpcRequest.getMethodId());
+            if (serviceInvoker == null) {
+                throw new RuntimeException("方法 id 未找到：" + rpcRequest.getMethodId());
+            }
+            return serviceInvoker;
+        }
+        return get(rpcRequest.getServiceName(), rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
+    }
+
+    /**
+     * 按方法签名获取调用器
+     * 未注册的服务会从本地注册中心补充注册（兼容只调用了 LocalRegistry.register 的场景）
+     *
+     * @param serviceName
+     * @param methodName
+     * @param parameterTypes
+     * @return 调用器，服务或方法不存在时抛出异常
+     */
+    public static ServiceInvoker get(String serviceName, String methodName, Class<?>[] parameterTypes) {
+        Map<String, ServiceInvoker[]> methodInvokerMap = serviceMap.get(serviceName);
+        if (methodInvokerMap == null) {
+            methodInvokerMap = registerFromLocalRegistry(serviceName);
+        }
+        ServiceInvoker[] candidates = methodInvokerMap.get(methodName);
+        if (candidates != null) {
+            for (ServiceInvoker candidate : candidates) {
+                if (candidate.matches(parameterTypes)) {
+                    return candidate;
+                }
+            }
+        }
+        throw new RuntimeException("服务方法未找到：" + serviceName + "." + methodName);
+    }
+
+    /**
+     * 按方法 id 获取调用器
+     *
+     * @param methodId
+     * @return 调用器，不存在或 id 冲突时返回 null
+     */
+    public static ServiceInvoker get(int methodId) {
+        MethodIdIndex index = methodIdIndex;
+        int position = Arrays.binarySearch(index.methodIds, methodId);
+        return position >= 0 ? index.invokers[position] : null;
+    }
+
+    /**
+     * 按方法 id 获取服务方法
+     *
+     * @param methodId
+     * @return 方法，不存在或 id 冲突时返回 null
+     */
+    public static Method getMethod(int methodId) {
+        ServiceInvoker serviceInvoker = get(methodId);
+        return serviceInvoker != null ? serviceInvoker.getMethod() : null;
+    }
+
+    /**
+     * 重建方法 id 索引
+     */
+    private static void refreshMethodIdIndex() {
+        TreeMap<Integer, ServiceInvoker> sortedMap = new TreeMap<>(registeredInvokerMap);
+        sortedMap.keySet().removeAll(conflictedMethodIds);
+        int[] methodIds = new int[sortedMap.size()];
+        ServiceInvoker[] invokers = new ServiceInvoker[sortedMap.size()];
+        int i = 0;
+        for (Map.Entry<Integer, ServiceInvoker> entry : sortedMap.entrySet()) {
+            methodIds[i] = entry.getKey();
+            invokers[i] = entry.getValue();
+            i++;
+        }
+        methodIdIndex = new MethodIdIndex(methodIds, invokers);
+    }
+
+    private static synchronized Map<String, ServiceInvoker[]> registerFromLocalRegistry(String serviceName) {
+        Map<String, ServiceInvoker[]> methodInvokerMap = serviceMap.get(serviceName);
+        if (methodInvokerMap != null) {
+            return methodInvokerMap;
+        }
+        Class<?> implClass = LocalRegistry.get(serviceName);
+        if (implClass == null) {
+            throw new RuntimeException("服务未找到：" + serviceName);
+        }
+        register(serviceName, implClass);
+        return serviceMap.get(serviceName);
+    }
+
+    /**
+     * 有序的方法 id 及下标对应的调用器
+     */
+    private static final class MethodIdIndex {
+
+        private final int[] methodIds;
+
+        private final ServiceInvoker[] invokers;
+
+        private MethodIdIndex(int[] methodIds, ServiceInvoker[] invokers) {
+            this.methodIds = methodIds;
+            this.invokers = invokers;
+        }
+    }
+}
@@ -3,11 +3,12 @@ package com.yupi.yurpc.server.tcp;
 import com.yupi.yurpc.protocol.ProtocolConstant;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.parsetools.RecordParser;
 
 /**
  * TCP 消息处理器包装
- * 装饰者模式，使用 recordParser 对原有的 buffer 处理能力进行增强
+ * 装饰者模式，按消息头中的 body 长度切分完整帧，解决半包、粘包问题
+ * 完整帧直接以 slice 的方式交给下游（不拷贝数据），只有跨包的半帧才会暂存拷贝
+ * body 长度来自对端，切分和预分配之前先校验，非法时丢弃后续数据并回调非法帧处理器（通常为关闭连接）
  *
  * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
  * @learn <a href="https://codefather.cn">编程宝典</a>
@@ -16,58 +17,75 @@ import io.vertx.core.parsetools.RecordParser;
 public class TcpBufferHandlerWrapper implements Handler<Buffer> {
 
     /**
-     * 解析器，用于解决半包、粘包问题
+     * 消息头中 body 长度字段的偏移量
      */
-    private final RecordParser recordParser;
+    private static final int BODY_LENGTH_OFFSET = 13;
 
-    public TcpBufferHandlerWrapper(Handler<Buffer> bufferHandler) {
-        recordParser = initRecordParser(bufferHandler);
-    }
+    private final Handler<Buffer> bufferHandler;
 
-    @Override
-    public void handle(Buffer buffer) {
-        recordParser.handle(buffer);
-    }
+    /**
+     * 单帧 body 的最大字节数
+     */
+    private final int maxFrameLength;
 
     /**
-     * 初始化解析器
-     *
-     * @param bufferHandler
-     * @return
+     * 非法帧处理器
      */
-    private RecordParser initRecordParser(Handler<Buffer> bufferHandler) {
-        // 构造 parser
-        RecordParser parser = RecordParser.newFixed(ProtocolConstant.MESSAGE_HEADER_LENGTH);
+    private final Runnable invalidFrameHandler;
 
-        parser.setOutput(new Handler<Buffer>() {
-            // 初始化
-            int size = -1;
-            // 一次完整的读取（头 + 体）
-            Buffer resultBuffer = Buffer.buffer();
+    /**
+     * 尚未组成完整帧的剩余数据
+     */
+    private Buffer pendingBuffer;
 
-            @Override
-            public void handle(Buffer buffer) {
-                // 1. 每次循环，首先读取消息头
-                if (-1 == size) {
-                    // 读取消息体长度
-                    size = buffer.getInt(13);
-                    parser.fixedSizeMode(size);
-                    // 写入头信息到结果
-                    resultBuffer.appendBuffer(buffer);
-                } else {
-                    // 2. 然后读取消息体
-                    // 写入体信息到结果
-                    resultBuffer.appendBuffer(buffer);
-                    // 已拼接为完整 Buffer，执行处理
-                    bufferHandler.handle(resultBuffer);
-                    // 重置一轮
-                    parser.fixedSizeMode(ProtocolConstant.MESSAGE_HEADER_LENGTH);
-                    size = -1;
-                    resultBuffer = Buffer.buffer();
-                }
-            }
-        });
+    /**
+     * 已收到非法帧，后续数据全部丢弃
+     */
+    private boolean invalid;
+
+    public TcpBufferHandlerWrapper(Handler<Buffer> bufferHandler, int maxFrameLength, Runnable invalidFrameHandler) {
+        this.bufferHandler = bufferHandler;
+        this.maxFrameLength = maxFrameLength;
+        this.invalidFrameHandler = invalidFrameHandler;
+    }
 
-        return parser;
+    @Override
+    public void handle(Buffer buffer) {
+        if (invalid) {
+            return;
+        }
+        Buffer data = buffer;
+        if (pendingBuffer != null) {
+            // 拼接上一次剩余的半帧
+            pendingBuffer.appendBuffer(buffer);
+            data = pendingBuffer;
+            pendingBuffer = null;
+        }
+        int length = data.length();
+        int offset = 0;
+        int frameLength = -1;
+        // 1. 循环切出所有完整帧（头 + 体）
+        while (length - offset >= ProtocolConstant.MESSAGE_HEADER_LENGTH) {
+            int bodyLength = data.getInt(offset + BODY_LENGTH_OFFSET);
+            if (bodyLength < 0 || bodyLength > maxFrameLength) {
+                invalid = true;
+                pendingBuffer = null;
+                invalidFrameHandler.run();
+                return;
+            }
+            frameLength = ProtocolConstant.MESSAGE_HEADER_LENGTH + bodyLength;
+            if (length - offset < frameLength) {
+                break;
+            }
+            bufferHandler.handle(data.slice(offset, offset + frameLength));
+            offset += frameLength;
+            frameLength = -1;
+        }
+        // 2. 暂存剩余的半帧，已知帧长时按帧长预分配，避免反复扩容
+        if (offset < length) {
+            int remaining = length - offset;
+            pendingBuffer = Buffer.buffer(Math.max(remaining, frameLength));
+            pendingBuffer.appendBuffer(data, offset, remaining);
+        }
     }
 }
@@ -0,0 +1,333 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.config.TcpConfig;
+import com.yupi.yurpc.exception.MethodIdNotFoundException;
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.protocol.*;
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetSocket;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * TCP 客户端长连接
+ * 单个连接可同时承载多个请求，通过消息头中的 requestId 将响应分发给对应的调用方
+ * 空闲时定期发送心跳（双向都有业务流量时跳过），长时间收不到任何数据（半开连接）时由读空闲超时关闭连接
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+@Slf4j
+public class TcpClientConnection {
+
+    private final NetSocket socket;
+
+    /**
+     * 写合并器
+     */
+    private final TcpWriteBatcher writeBatcher;
+
+    /**
+     * 等待响应的请求：requestId => 响应 future
+     */
+    private final Map<Long, CompletableFuture<RpcResponse>> pendingRequests = new ConcurrentHashMap<>();
+
+    /**
+     * 进行中的流式请求：requestId => 元素处理器
+     */
+    private final Map<Long, Consumer<Object>> streamElementHandlers = new ConcurrentHashMap<>();
+
+    private final Context context;
+
+    /**
+     * 连接关闭回调
+     */
+    private final Runnable closeCallback;
+
+    /**
+     * 心跳定时器 id，未开启心跳时为 -1
+     */
+    private final long heartbeatTimerId;
+
+    private volatile boolean closed = false;
+
+    /**
+     * 心跳间隔（单位毫秒）
+     */
+    private final long heartbeatInterval;
+
+    /**
+     * 最近一次读到数据的时间（单位毫秒）
+     */
+    private volatile long lastReadTime = System.currentTimeMillis();
+
+    /**
+     * 最近一次写出数据的时间（单位毫秒）
+     */
+    private volatile long lastWriteTime = System.currentTimeMillis();
+
+    /**
+     * 单帧 body 的最大字节数
+     */
+    private final int maxFrameLength;
+
+    public TcpClientConnection(NetSocket socket, Context context, TcpConfig tcpConfig, Runnable closeCallback) {
+        this.socket = socket;
+        this.context = context;
+        this.closeCallback = closeCallback;
+        this.maxFrameLength = tcpConfig.getMaxFrameLength();
+        this.writeBatcher = new TcpWriteBatcher(socket, context,
+                tcpConfig.isWriteBatchEnabled(), tcpConfig.getWriteBatchMaxBytes());
+        socket.handler(new TcpBufferHandlerWrapper(this::handleResponse, tcpConfig.getMaxFrameLength(), () -> {
+            log.warn("invalid frame length, close connection, remote = {}", socket.remoteAddress());
+            socket.close();
+        }));
+        socket.closeHandler(v -> handleClose());
+        this.heartbeatInterval = tcpConfig.getHeartbeatInterval();
+        this.heartbeatTimerId = heartbeatInterval > 0
+                ? context.owner().setPeriodic(heartbeatInterval, id -> sendHeartbeat())
+                : -1;
+        socket.exceptionHandler(e -> {
+            log.warn("tcp connection error, remote = {}", socket.remoteAddress(), e);
+            socket.close();
+        });
+    }
+
+    /**
+     * 发送请求
+     *
+     * @param protocolMessage 请求消息
+     * @param timeoutMillis   超时时间（单位毫秒）
+     * @return 响应 future
+     */
+    public CompletableFuture<RpcResponse> send(ProtocolMessage<RpcRequest> protocolMessage, long timeoutMillis) {
+        long requestId = protocolMessage.getHeader().getRequestId();
+        CompletableFuture<RpcResponse> responseFuture = new CompletableFuture<>();
+        if (closed) {
+            responseFuture.completeExceptionally(new RuntimeException("连接已关闭"));
+            return responseFuture;
+        }
+        Buffer encodeBuffer;
+        try {
+            encodeBuffer = ProtocolMessageEncoder.encode(protocolMessage);
+        } catch (IOException e) {
+            responseFuture.completeExceptionally(new RuntimeException("协议消息编码错误", e));
+            return responseFuture;
+        }
+        pendingRequests.put(requestId, responseFuture);
+        // 无论成功、失败还是超时，都要移除等待记录
+        responseFuture.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((response, e) -> pendingRequests.remove(requestId));
+        // 写失败会触发连接关闭，由关闭回调统一让等待中的请求失败
+        lastWriteTime = System.currentTimeMillis();
+        writeBatcher.write(encodeBuffer);
+        // 连接可能在登记之后关闭，此时关闭回调未必能看到该请求
+        if (closed) {
+            responseFuture.completeExceptionally(new RuntimeException("连接已关闭"));
+        }
+        return responseFuture;
+    }
+
+    /**
+     * 发送流式请求
+     * 元素逐帧到达时交给元素处理器，最后一帧普通响应完成返回的 future；流的时长取决于消费速度，因此不设超时
+     *
+     * @param protocolMessage 请求消息
+     * @param elementHandler  元素处理器（在事件循环上调用）
+     * @return 结束响应 future
+     */
+    public CompletableFuture<RpcResponse> sendStream(ProtocolMessage<RpcRequest> protocolMessage, Consumer<Object> elementHandler) {
+        long requestId = protocolMessage.getHeader().getRequestId();
+        CompletableFuture<RpcResponse> responseFuture = new CompletableFuture<>();
+        if (closed) {
+            responseFuture.completeExceptionally(new RuntimeException("连接已关闭"));
+            return responseFuture;
+        }
+        Buffer encodeBuffer;
+        try {
+            encodeBuffer = ProtocolMessageEncoder.encode(protocolMessage);
+        } catch (IOException e) {
+            responseFuture.completeExceptionally(new RuntimeException("协议消息编码错误", e));
+            return responseFuture;
+        }
+        streamElementHandlers.put(requestId, elementHandler);
+        pendingRequests.put(requestId, responseFuture);
+        responseFuture.whenComplete((response, e) -> {
+            pendingRequests.remove(requestId);
+            streamElementHandlers.remove(requestId);
+        });
+        lastWriteTime = System.currentTimeMillis();
+        writeBatcher.write(encodeBuffer);
+        if (closed) {
+            responseFuture.completeExceptionally(new RuntimeException("连接已关闭"));
+        }
+        return responseFuture;
+    }
+
+    /**
+     * 发送流控额度
+     *
+     * @param requestId 流式请求 id
+     * @param credits   新增的请求元素数，不大于 0 表示取消
+     */
+    public void sendStreamCredit(long requestId, long credits) {
+        if (closed) {
+            return;
+        }
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.JDK.getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.STREAM_CREDIT.getKey());
+        header.setRequestId(requestId);
+        try {
+            lastWriteTime = System.currentTimeMillis();
+            writeBatcher.write(ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, credits)));
+        } catch (IOException e) {
+            throw new RuntimeException("协议消息编码错误", e);
+        }
+    }
+
+    /**
+     * 取消流式请求：不再接收元素，并通知服务端停止生产
+     *
+     * @param requestId 流式请求 id
+     */
+    public void cancelStream(long requestId) {
+        streamElementHandlers.remove(requestId);
+        CompletableFuture<RpcResponse> responseFuture = pendingRequests.remove(requestId);
+        sendStreamCredit(requestId, 0);
+        if (responseFuture != null) {
+            responseFuture.cancel(false);
+        }
+    }
+
+    /**
+     * 处理响应
+     *
+     * @param buffer
+     */
+    private void handleResponse(Buffer buffer) {
+        lastReadTime = System.currentTimeMillis();
+        ProtocolMessage<RpcResponse> rpcResponseProtocolMessage;
+        try {
+            rpcResponseProtocolMessage = (ProtocolMessage<RpcResponse>) ProtocolMessageDecoder.decode(buffer, maxFrameLength);
+        } catch (IOException | RuntimeException e) {
+            // 非法帧无法定位到请求，关闭连接，由关闭回调让等待中的请求失败
+            log.warn("协议消息解码错误, close connection, remote = {}", socket.remoteAddress(), e);
+            socket.close();
+            return;
+        }
+        ProtocolMessage.Header header = rpcResponseProtocolMessage.getHeader();
+        // 心跳：收到即说明连接可用（读空闲计时已重置），对端的心跳请求需要回应
+        if (header.getType() == ProtocolMessageTypeEnum.HEART_BEAT.getKey()) {
+            if (header.getStatus() != ProtocolMessageStatusEnum.OK.getValue()) {
+                header.setStatus((byte) ProtocolMessageStatusEnum.OK.getValue());
+                writeHeartbeat(header);
+            }
+            return;
+        }
+        long requestId = header.getRequestId();
+        // 流式响应元素
+        if (header.getType() == ProtocolMessageTypeEnum.STREAM.getKey()) {
+            Consumer<Object> elementHandler = streamElementHandlers.get(requestId);
+            if (elementHandler != null) {
+                elementHandler.accept(rpcResponseProtocolMessage.getBody().getData());
+            }
+            return;
+        }
+        CompletableFuture<RpcResponse> responseFuture = pendingRequests.remove(requestId);
+        if (responseFuture == null) {
+            // 请求已超时，丢弃迟到的响应
+            log.debug("discard response without pending request, requestId = {}", requestId);
+            return;
+        }
+        // 服务提供者无法识别方法 id
+        if (header.getStatus() == ProtocolMessageStatusEnum.BAD_REQUEST.getValue()) {
+            responseFuture.completeExceptionally(new MethodIdNotFoundException(rpcResponseProtocolMessage.getBody().getMessage()));
+            return;
+        }
+        responseFuture.complete(rpcResponseProtocolMessage.getBody());
+    }
+
+    /**
+     * 连接关闭，所有未完成的请求立即失败
+     */
+    private void handleClose() {
+        closed = true;
+        if (heartbeatTimerId >= 0) {
+            context.owner().cancelTimer(heartbeatTimerId);
+        }
+        RuntimeException closedException = new RuntimeException("连接已关闭：" + socket.remoteAddress());
+        for (Long requestId : pendingRequests.keySet()) {
+            CompletableFuture<RpcResponse> responseFuture = pendingRequests.remove(requestId);
+            if (responseFuture != null) {
+                responseFuture.completeExceptionally(closedException);
+            }
+        }
+        streamElementHandlers.clear();
+        closeCallback.run();
+    }
+
+    /**
+     * 发送心跳请求
+     * 一个心跳间隔内既读到又写出过数据时，两端的读空闲计时都已被业务流量重置，无需发送心跳
+     */
+    private void sendHeartbeat() {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastReadTime < heartbeatInterval && now - lastWriteTime < heartbeatInterval) {
+            return;
+        }
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.JDK.getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.HEART_BEAT.getKey());
+        writeHeartbeat(header);
+    }
+
+    private void writeHeartbeat(ProtocolMessage.Header header) {
+        try {
+            writeBatcher.write(ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, null)));
+        } catch (IOException e) {
+            log.warn("failed to encode heartbeat", e);
+        }
+    }
+
+    /**
+     * 连接是否可用
+     *
+     * @return
+     */
+    public boolean isActive() {
+        return !closed;
+    }
+
+    /**
+     * 未完成的请求数
+     *
+     * @return
+     */
+    public int getPendingRequestCount() {
+        return pendingRequests.size();
+    }
+
+    /**
+     * 关闭连接
+     */
+    public void close() {
+        socket.close();
+    }
+}
@@ -0,0 +1,176 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.protocol.ProtocolMessage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 客户端流式响应
+ * 首次 request(n) 时才获取连接并发送请求，之后每次 request(n) 都作为流控额度发给服务端，
+ * 服务端只会发送已请求的元素，消费者处理不过来时不会在客户端堆积
+ * 元素和结束信号在连接所在的事件循环上回调，订阅者不应在回调中阻塞；仅支持单个订阅者
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class TcpClientStream implements Flow.Publisher<Object> {
+
+    private final Supplier<CompletableFuture<TcpClientConnection>> connectionSupplier;
+
+    private final ProtocolMessage<RpcRequest> protocolMessage;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    public TcpClientStream(Supplier<CompletableFuture<TcpClientConnection>> connectionSupplier,
+                           ProtocolMessage<RpcRequest> protocolMessage) {
+        this.connectionSupplier = connectionSupplier;
+        this.protocolMessage = protocolMessage;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Object> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("流式响应只支持一个订阅者"));
+            return;
+        }
+        subscriber.onSubscribe(new StreamSubscription(subscriber));
+    }
+
+    /**
+     * 订阅：状态变更需持有当前对象锁
+     */
+    private class StreamSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super Object> subscriber;
+
+        private final long requestId = protocolMessage.getHeader().getRequestId();
+
+        /**
+         * 已结束（完成、出错或取消），之后不再回调订阅者
+         */
+        private final AtomicBoolean done = new AtomicBoolean(false);
+
+        private TcpClientConnection connection;
+
+        /**
+         * 连接建立前累计的额度
+         */
+        private long pendingCredits;
+
+        private boolean started;
+
+        private StreamSubscription(Flow.Subscriber<? super Object> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            TcpClientConnection current;
+            if (n <= 0) {
+                synchronized (this) {
+                    current = connection;
+                }
+                terminate(new IllegalArgumentException("请求的元素数必须为正数：" + n));
+                if (current != null) {
+                    current.cancelStream(requestId);
+                }
+                return;
+            }
+            synchronized (this) {
+                if (done.get()) {
+                    return;
+                }
+                current = connection;
+                if (current == null) {
+                    pendingCredits += n;
+                    if (pendingCredits < 0) {
+                        pendingCredits = Long.MAX_VALUE;
+                    }
+                    if (started) {
+                        return;
+                    }
+                    started = true;
+                }
+            }
+            if (current != null) {
+                current.sendStreamCredit(requestId, n);
+                return;
+            }
+            connectionSupplier.get().whenComplete((acquired, e) -> {
+                if (e != null) {
+                    terminate(e);
+                    return;
+                }
+                long credits;
+                synchronized (this) {
+                    if (done.get()) {
+                        return;
+                    }
+                    connection = acquired;
+                    credits = pendingCredits;
+                    pendingCredits = 0;
+                }
+                // 请求与额度经同一写合并器按序写出，服务端先登记流再处理额度
+                acquired.sendStream(protocolMessage, this::onElement).whenComplete(this::onTerminal);
+                acquired.sendStreamCredit(requestId, credits);
+            });
+        }
+
+        @Override
+        public void cancel() {
+            TcpClientConnection current;
+            synchronized (this) {
+                if (!done.compareAndSet(false, true)) {
+                    return;
+                }
+                current = connection;
+            }
+            if (current != null) {
+                current.cancelStream(requestId);
+            }
+        }
+
+        private void onElement(Object element) {
+            if (!done.get()) {
+                subscriber.onNext(element);
+            }
+        }
+
+        private void onTerminal(RpcResponse rpcResponse, Throwable e) {
+            if (e != null) {
+                terminate(e);
+                return;
+            }
+            if (rpcResponse.getException() != null) {
+                terminate(rpcResponse.getException());
+                return;
+            }
+            if (done.compareAndSet(false, true)) {
+                subscriber.onComplete();
+            }
+        }
+
+        private void terminate(Throwable e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (done.compareAndSet(false, true)) {
+                subscriber.onError(cause);
+            }
+        }
+    }
+}
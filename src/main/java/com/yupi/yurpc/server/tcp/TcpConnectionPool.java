@@ -0,0 +1,160 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.config.TcpConfig;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 单个服务提供者的 TCP 连接池
+ * 固定数量的长连接，轮询选取；连接断开时立即在后台重连，建连失败时在下次获取时重建
+ * 长时间未被获取且没有进行中的请求时视为空闲，由客户端驱逐并关闭
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class TcpConnectionPool {
+
+    private final NetClient netClient;
+
+    private final String host;
+
+    private final int port;
+
+    private final TcpConfig tcpConfig;
+
+    /**
+     * 连接槽位，每个槽位保存一个（可能尚在建立中的）连接
+     */
+    private final AtomicReferenceArray<CompletableFuture<TcpClientConnection>> slots;
+
+    /**
+     * 当前轮询的下标
+     */
+    private final AtomicInteger currentIndex = new AtomicInteger(0);
+
+    private volatile boolean closed = false;
+
+    /**
+     * 最近一次获取连接的时间（单位毫秒）
+     */
+    private volatile long lastAcquireTime = System.currentTimeMillis();
+
+    public TcpConnectionPool(NetClient netClient, String host, int port, TcpConfig tcpConfig) {
+        this.netClient = netClient;
+        this.host = host;
+        this.port = port;
+        this.tcpConfig = tcpConfig;
+        this.slots = new AtomicReferenceArray<>(Math.max(1, tcpConfig.getConnectionsPerProvider()));
+    }
+
+    /**
+     * 获取一个可用连接，连接池已关闭时返回失败的 future
+     *
+     * @return
+     */
+    public CompletableFuture<TcpClientConnection> acquire() {
+        lastAcquireTime = System.currentTimeMillis();
+        if (closed) {
+            return CompletableFuture.failedFuture(new RuntimeException(String.format("连接池已关闭：%s:%s", host, port)));
+        }
+        int index = Math.floorMod(currentIndex.getAndIncrement(), slots.length());
+        while (true) {
+            CompletableFuture<TcpClientConnection> current = slots.get(index);
+            if (isUsable(current)) {
+                return current;
+            }
+            CompletableFuture<TcpClientConnection> created = new CompletableFuture<>();
+            if (slots.compareAndSet(index, current, created)) {
+                connect(index, created);
+                return created;
+            }
+        }
+    }
+
+    /**
+     * 是否空闲：超过空闲时间未被获取，且没有建连中的连接和未完成的请求（包括流式请求）
+     *
+     * @param now           当前时间（单位毫秒）
+     * @param idleTimeout   空闲时间（单位毫秒）
+     * @return
+     */
+    public boolean isIdle(long now, long idleTimeout) {
+        if (now - lastAcquireTime < idleTimeout) {
+            return false;
+        }
+        for (int i = 0; i < slots.length(); i++) {
+            CompletableFuture<TcpClientConnection> current = slots.get(i);
+            if (current == null || current.isCompletedExceptionally()) {
+                continue;
+            }
+            if (!current.isDone() || current.join().getPendingRequestCount() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 关闭池中所有连接
+     */
+    public void close() {
+        closed = true;
+        for (int i = 0; i < slots.length(); i++) {
+            CompletableFuture<TcpClientConnection> current = slots.getAndSet(i, null);
+            if (current != null) {
+                current.thenAccept(TcpClientConnection::close);
+            }
+        }
+    }
+
+    /**
+     * 建连中或已建立且未关闭的连接均可复用
+     *
+     * @param connectionFuture
+     * @return
+     */
+    private boolean isUsable(CompletableFuture<TcpClientConnection> connectionFuture) {
+        if (connectionFuture == null || connectionFuture.isCompletedExceptionally()) {
+            return false;
+        }
+        return !connectionFuture.isDone() || connectionFuture.join().isActive();
+    }
+
+    private void connect(int index, CompletableFuture<TcpClientConnection> connectionFuture) {
+        netClient.connect(port, host, result -> {
+            if (result.succeeded()) {
+                connectionFuture.complete(new TcpClientConnection(result.result(), Vertx.currentContext(), tcpConfig,
+                        () -> reconnect(index, connectionFuture)));
+            } else {
+                connectionFuture.completeExceptionally(
+                        new RuntimeException(String.format("连接服务提供者失败：%s:%s", host, port), result.cause()));
+            }
+        });
+    }
+
+    /**
+     * 连接关闭（包括心跳超时被驱逐）后立即重连，避免下一个请求承担建连耗时
+     * 重连失败不再重试，由下次获取连接时重建
+     *
+     * @param index
+     * @param closedFuture 已关闭的连接
+     */
+    private void reconnect(int index, CompletableFuture<TcpClientConnection> closedFuture) {
+        if (closed) {
+            return;
+        }
+        CompletableFuture<TcpClientConnection> created = new CompletableFuture<>();
+        if (slots.compareAndSet(index, closedFuture, created)) {
+            connect(index, created);
+        }
+    }
+}
@@ -1,17 +1,31 @@
 package com.yupi.yurpc.server.tcp;
 
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.config.TcpConfig;
+import com.yupi.yurpc.exception.MethodIdNotFoundException;
 import com.yupi.yurpc.model.RpcRequest;
 import com.yupi.yurpc.model.RpcResponse;
 import com.yupi.yurpc.protocol.*;
-import com.yupi.yurpc.registry.LocalRegistry;
+import com.yupi.yurpc.server.dispatcher.Dispatcher;
+import com.yupi.yurpc.server.dispatcher.DispatcherFactory;
+import com.yupi.yurpc.server.invoker.ServiceInvoker;
+import com.yupi.yurpc.server.invoker.ServiceInvokerRegistry;
 import com.yupi.yurpc.telemetry.TelemetryContext;
 import com.yupi.yurpc.telemetry.TelemetryManager;
+import com.yupi.yurpc.utils.MethodIdUtils;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.net.NetSocket;
+import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * TCP 请求处理器
@@ -20,8 +34,22 @@ import java.lang.reflect.Method;
  * @learn <a href="https://codefather.cn">编程宝典</a>
  * @from <a href="https://yupi.icu">编程导航知识星球</a>
  */
+@Slf4j
 public class TcpServerHandler implements Handler<NetSocket> {
 
+    /**
+     * 请求分发器
+     */
+    private final Dispatcher dispatcher;
+
+    public TcpServerHandler() {
+        this(DispatcherFactory.getInstance(RpcApplication.getRpcConfig().getDispatcher()));
+    }
+
+    public TcpServerHandler(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
     /**
      * 处理请求
      *
@@ -29,60 +57,265 @@ public class TcpServerHandler implements Handler<NetSocket> {
      */
     @Override
     public void handle(NetSocket socket) {
+        // 同一连接上的响应经写合并器统一写出
+        TcpConfig tcpConfig = RpcApplication.getRpcConfig().getTcp();
+        TcpWriteBatcher writeBatcher = new TcpWriteBatcher(socket, Vertx.currentContext(),
+                tcpConfig.isWriteBatchEnabled(), tcpConfig.getWriteBatchMaxBytes());
+        // 该连接上进行中的流式响应：requestId => 流
+        Map<Long, TcpServerStream> streams = new ConcurrentHashMap<>();
         TcpBufferHandlerWrapper bufferHandlerWrapper = new TcpBufferHandlerWrapper(buffer -> {
             // 接受请求，解码
             ProtocolMessage<RpcRequest> protocolMessage;
             try {
-                protocolMessage = (ProtocolMessage<RpcRequest>) ProtocolMessageDecoder.decode(buffer);
-            } catch (IOException e) {
-                throw new RuntimeException("协议消息解码错误");
+                protocolMessage = (ProtocolMessage<RpcRequest>) ProtocolMessageDecoder.decode(buffer, tcpConfig.getMaxFrameLength());
+            } catch (IOException | RuntimeException e) {
+                // 非法帧无法定位到请求，直接关闭连接
+                log.warn("协议消息解码错误, close connection, remote = {}", socket.remoteAddress(), e);
+                socket.close();
+                return;
             }
-            RpcRequest rpcRequest = protocolMessage.getBody();
             ProtocolMessage.Header header = protocolMessage.getHeader();
-
-            // 处理请求
-            // 构造响应结果对象
-            RpcResponse rpcResponse = new RpcResponse();
-            TelemetryContext telemetryContext = TelemetryManager.startServerTelemetry(
-                    rpcRequest.getServiceName(), rpcRequest.getMethodName());
-            boolean success = false;
-            Throwable dispatchError = null;
+            // 心跳请求直接在事件循环上回应
+            if (header.getType() == ProtocolMessageTypeEnum.HEART_BEAT.getKey()) {
+                doHeartbeatResponse(writeBatcher, header);
+                return;
+            }
+            // 流控额度：增加额度或取消（额度不大于 0），流已结束时忽略
+            // 增加额度会同步触发上游生成元素，交给分发器执行，不能在事件循环上拉取可能阻塞的数据源
+            if (header.getType() == ProtocolMessageTypeEnum.STREAM_CREDIT.getKey()) {
+                TcpServerStream stream = streams.get(header.getRequestId());
+                if (stream != null) {
+                    long credits = (Long) ((ProtocolMessage<?>) protocolMessage).getBody();
+                    try {
+                        dispatcher.dispatch(() -> {
+                            if (credits > 0) {
+                                stream.addCredits(credits);
+                            } else {
+                                stream.cancel();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        // 与请求被拒绝时一样发送结束帧，否则消费者会一直等待
+                        stream.fail(new RuntimeException("服务端繁忙，请求被拒绝", e));
+                    }
+                }
+                return;
+            }
+            RpcRequest rpcRequest = protocolMessage.getBody();
+            // 请求只携带方法 id 时，按 id 查找调用器；无法识别的 id 返回 BAD_REQUEST，由调用方改为携带完整签名重试
+            ServiceInvoker serviceInvoker = null;
+            String serviceName = rpcRequest.getServiceName();
+            String methodName = rpcRequest.getMethodName();
+            if (serviceName == null && rpcRequest.getMethodId() != MethodIdUtils.NO_METHOD_ID) {
+                serviceInvoker = ServiceInvokerRegistry.get(rpcRequest.getMethodId());
+                if (serviceInvoker == null) {
+                    RpcResponse rpcResponse = new RpcResponse();
+                    rpcResponse.setMessage("方法 id 未找到：" + rpcRequest.getMethodId());
+                    doResponse(writeBatcher, header, rpcResponse, TelemetryContext.disabled(),
+                            new MethodIdNotFoundException(rpcResponse.getMessage()), ProtocolMessageStatusEnum.BAD_REQUEST);
+                    return;
+                }
+                serviceName = serviceInvoker.getServiceName();
+                methodName = serviceInvoker.getMethod().getName();
+            }
+            if (serviceInvoker == null) {
+                try {
+                    serviceInvoker = ServiceInvokerRegistry.get(rpcRequest);
+                } catch (RuntimeException e) {
+                    // 找不到方法时交给 doInvoke 统一返回错误响应
+                }
+            }
+            TelemetryContext telemetryContext = TelemetryManager.startServerTelemetry(serviceName, methodName);
+            // 流式方法：在分发前登记，保证随后到达的额度帧能找到对应的流
+            TcpServerStream stream = null;
+            if (serviceInvoker != null && serviceInvoker.isStreaming()) {
+                stream = createStream(streams, writeBatcher, header, serviceInvoker, telemetryContext);
+                streams.put(header.getRequestId(), stream);
+            }
+            // 解码在事件循环上完成，服务调用交给分发器，避免慢调用阻塞同一事件循环上的其他连接
+            ServiceInvoker resolvedInvoker = serviceInvoker;
+            TcpServerStream resolvedStream = stream;
             try {
-                // 获取要调用的服务实现类，通过反射调用
-                Class<?> implClass = LocalRegistry.get(rpcRequest.getServiceName());
-                if (implClass == null) {
-                    throw new RuntimeException("服务未找到：" + rpcRequest.getServiceName());
+                dispatcher.dispatch(() -> doInvoke(writeBatcher, header, rpcRequest, resolvedInvoker, resolvedStream, telemetryContext));
+            } catch (RejectedExecutionException e) {
+                RuntimeException busyException = new RuntimeException("服务端繁忙，请求被拒绝", e);
+                if (stream != null) {
+                    stream.onError(busyException);
+                    return;
                 }
-                Method method = implClass.getMethod(rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
-                Object result = method.invoke(implClass.newInstance(), rpcRequest.getArgs());
-                // 封装返回结果
-                rpcResponse.setData(result);
-                rpcResponse.setDataType(method.getReturnType());
+                RpcResponse rpcResponse = new RpcResponse();
+                rpcResponse.setMessage(busyException.getMessage());
+                rpcResponse.setException(busyException);
+                doResponse(writeBatcher, header, rpcResponse, telemetryContext, busyException);
+            }
+        }, tcpConfig.getMaxFrameLength(), () -> {
+            log.warn("invalid frame length, close connection, remote = {}", socket.remoteAddress());
+            socket.close();
+        });
+        socket.handler(bufferHandlerWrapper);
+        // 连接关闭后取消所有流，停止向上游请求元素
+        socket.closeHandler(v -> streams.values().forEach(TcpServerStream::cancel));
+    }
+
+    /**
+     * 创建流式响应：元素逐帧发送，结束时发送一帧普通响应（携带异常或空结果）
+     *
+     * @param streams
+     * @param writeBatcher
+     * @param header
+     * @param serviceInvoker
+     * @param telemetryContext
+     * @return
+     */
+    private TcpServerStream createStream(Map<Long, TcpServerStream> streams, TcpWriteBatcher writeBatcher,
+                                         ProtocolMessage.Header header, ServiceInvoker serviceInvoker,
+                                         TelemetryContext telemetryContext) {
+        long requestId = header.getRequestId();
+        return new TcpServerStream(writeBatcher, header, serviceInvoker.getGenericReturnTypeName(), error -> {
+            streams.remove(requestId);
+            RpcResponse rpcResponse = new RpcResponse();
+            if (error == null) {
                 rpcResponse.setMessage("ok");
-                success = true;
-            } catch (Exception e) {
-                dispatchError = e;
-                rpcResponse.setMessage(e.getMessage());
-                rpcResponse.setException(e);
+                doResponse(writeBatcher, header, rpcResponse, telemetryContext, null);
+                return;
             }
+            Exception exception = error instanceof Exception ? (Exception) error : new RuntimeException(error);
+            rpcResponse.setMessage(exception.getMessage());
+            rpcResponse.setException(exception);
+            doResponse(writeBatcher, header, rpcResponse, telemetryContext, exception);
+        }, () -> {
+            // 消费者已取消，无需再响应
+            streams.remove(requestId);
+            TelemetryManager.finishTelemetry(telemetryContext, true, null);
+        });
+    }
+
+    /**
+     * 回应心跳
+     *
+     * @param writeBatcher
+     * @param header
+     */
+    private void doHeartbeatResponse(TcpWriteBatcher writeBatcher, ProtocolMessage.Header header) {
+        // 对端的心跳回应无需处理
+        if (header.getStatus() == ProtocolMessageStatusEnum.OK.getValue()) {
+            return;
+        }
+        header.setStatus((byte) ProtocolMessageStatusEnum.OK.getValue());
+        try {
+            writeBatcher.write(ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, null)));
+        } catch (IOException e) {
+            throw new RuntimeException("协议消息编码错误", e);
+        }
+    }
 
-            // 发送响应，编码
-            header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getKey());
-            header.setStatus((byte) (success ? ProtocolMessageStatusEnum.OK.getValue() : ProtocolMessageStatusEnum.BAD_RESPONSE.getValue()));
-            ProtocolMessage<RpcResponse> responseProtocolMessage = new ProtocolMessage<>(header, rpcResponse);
+    /**
+     * 调用服务并响应（在分发器选定的线程上执行）
+     *
+     * @param writeBatcher
+     * @param header
+     * @param rpcRequest
+     * @param serviceInvoker   已找到的调用器，为 null 时按方法签名查找
+     * @param stream           流式方法的流，非流式方法为 null
+     * @param telemetryContext
+     */
+    private void doInvoke(TcpWriteBatcher writeBatcher, ProtocolMessage.Header header, RpcRequest rpcRequest,
+                          ServiceInvoker serviceInvoker, TcpServerStream stream, TelemetryContext telemetryContext) {
+        if (stream != null) {
             try {
-                Buffer encode = ProtocolMessageEncoder.encode(responseProtocolMessage);
-                socket.write(encode);
-            } catch (IOException e) {
-                RuntimeException encodeException = new RuntimeException("协议消息编码错误", e);
-                dispatchError = encodeException;
-                success = false;
-                throw encodeException;
-            } finally {
-                TelemetryManager.finishTelemetry(telemetryContext, success, dispatchError);
+                Object result = serviceInvoker.invoke(rpcRequest.getArgs());
+                if (result == null) {
+                    stream.onComplete();
+                    return;
+                }
+                ((Flow.Publisher<?>) result).subscribe(stream);
+            } catch (Exception e) {
+                stream.onError(e);
             }
-        });
-        socket.handler(bufferHandlerWrapper);
+            return;
+        }
+        // 构造响应结果对象
+        RpcResponse rpcResponse = new RpcResponse();
+        try {
+            // 获取预先解析好的服务调用器
+            if (serviceInvoker == null) {
+                serviceInvoker = ServiceInvokerRegistry.get(rpcRequest);
+            }
+            Object result = serviceInvoker.invoke(rpcRequest.getArgs());
+            rpcResponse.setDataGenericType(serviceInvoker.getGenericReturnTypeName());
+            // 异步服务：等待结果完成后再响应，不阻塞当前线程
+            if (result instanceof CompletionStage) {
+                ((CompletionStage<?>) result).whenComplete((value, e) -> {
+                    if (e == null) {
+                        rpcResponse.setData(value);
+                        rpcResponse.setDataType(value != null ? value.getClass() : null);
+                        rpcResponse.setMessage("ok");
+                        doResponse(writeBatcher, header, rpcResponse, telemetryContext, null);
+                    } else {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        Exception exception = cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+                        rpcResponse.setMessage(exception.getMessage());
+                        rpcResponse.setException(exception);
+                        doResponse(writeBatcher, header, rpcResponse, telemetryContext, exception);
+                    }
+                });
+                return;
+            }
+            // 封装返回结果
+            rpcResponse.setData(result);
+            rpcResponse.setDataType(serviceInvoker.getReturnType());
+            rpcResponse.setMessage("ok");
+        } catch (Exception e) {
+            rpcResponse.setMessage(e.getMessage());
+            rpcResponse.setException(e);
+            doResponse(writeBatcher, header, rpcResponse, telemetryContext, e);
+            return;
+        }
+        doResponse(writeBatcher, header, rpcResponse, telemetryContext, null);
+    }
+
+    /**
+     * 发送响应，编码
+     *
+     * @param writeBatcher
+     * @param header           请求消息头（复用 requestId 等信息）
+     * @param rpcResponse
+     * @param telemetryContext
+     * @param dispatchError    调用异常，为 null 表示调用成功
+     */
+    private void doResponse(TcpWriteBatcher writeBatcher, ProtocolMessage.Header header, RpcResponse rpcResponse,
+                            TelemetryContext telemetryContext, Throwable dispatchError) {
+        doResponse(writeBatcher, header, rpcResponse, telemetryContext, dispatchError,
+                dispatchError == null ? ProtocolMessageStatusEnum.OK : ProtocolMessageStatusEnum.BAD_RESPONSE);
+    }
+
+    /**
+     * 发送响应，编码（指定响应状态）
+     *
+     * @param writeBatcher
+     * @param header
+     * @param rpcResponse
+     * @param telemetryContext
+     * @param dispatchError
+     * @param status           响应状态
+     */
+    private void doResponse(TcpWriteBatcher writeBatcher, ProtocolMessage.Header header, RpcResponse rpcResponse,
+                            TelemetryContext telemetryContext, Throwable dispatchError, ProtocolMessageStatusEnum status) {
+        boolean success = dispatchError == null;
+        header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getKey());
+        header.setStatus((byte) status.getValue());
+        ProtocolMessage<RpcResponse> responseProtocolMessage = new ProtocolMessage<>(header, rpcResponse);
+        try {
+            Buffer encode = ProtocolMessageEncoder.encode(responseProtocolMessage);
+            writeBatcher.write(encode);
+        } catch (IOException e) {
+            RuntimeException encodeException = new RuntimeException("协议消息编码错误", e);
+            dispatchError = encodeException;
+            success = false;
+            throw encodeException;
+        } finally {
+            TelemetryManager.finishTelemetry(telemetryContext, success, dispatchError);
+        }
     }
 
 }
@@ -0,0 +1,214 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.protocol.ProtocolMessage;
+import com.yupi.yurpc.protocol.ProtocolMessageEncoder;
+import com.yupi.yurpc.protocol.ProtocolMessageStatusEnum;
+import com.yupi.yurpc.protocol.ProtocolMessageTypeEnum;
+
+import java.io.IOException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 服务端流式响应
+ * 订阅服务方法返回的 Flow.Publisher，只按消费者发来的流控额度向上游请求元素，每个元素编码为一帧 STREAM 消息，
+ * 因此无论结果多大，服务端待发送的元素数都不超过消费者的额度
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class TcpServerStream implements Flow.Subscriber<Object> {
+
+    private final TcpWriteBatcher writeBatcher;
+
+    /**
+     * 请求消息头（元素帧复用其 requestId、序列化器、压缩器）
+     */
+    private final ProtocolMessage.Header requestHeader;
+
+    /**
+     * 元素的泛型类型名（非泛型元素为 null）
+     */
+    private final String elementGenericTypeName;
+
+    /**
+     * 结束回调：正常结束时参数为 null，否则为异常
+     */
+    private final Consumer<Throwable> terminalHandler;
+
+    /**
+     * 取消回调（消费者取消或连接关闭）
+     */
+    private final Runnable cancelHandler;
+
+    private final AtomicBoolean terminated = new AtomicBoolean(false);
+
+    /**
+     * 上游订阅，读写需持有当前对象锁；request / cancel 在锁外调用，
+     * 上游在 request 中同步拉取元素（可能阻塞）时不会占住锁，取消和后续额度不必排队等待
+     */
+    private Flow.Subscription subscription;
+
+    /**
+     * 尚未向上游请求的额度（订阅建立前或其他线程正在请求时累计）
+     */
+    private long pendingCredits;
+
+    /**
+     * 是否有线程正在向上游请求，同一时刻只有一个线程调用 request，保证 request 串行
+     */
+    private boolean requesting;
+
+    private boolean cancelled;
+
+    public TcpServerStream(TcpWriteBatcher writeBatcher, ProtocolMessage.Header requestHeader, String elementGenericTypeName,
+                           Consumer<Throwable> terminalHandler, Runnable cancelHandler) {
+        this.writeBatcher = writeBatcher;
+        this.requestHeader = requestHeader;
+        this.elementGenericTypeName = elementGenericTypeName;
+        this.terminalHandler = terminalHandler;
+        this.cancelHandler = cancelHandler;
+    }
+
+    /**
+     * 增加流控额度（消费者 request(n)）
+     *
+     * @param credits
+     */
+    public void addCredits(long credits) {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            pendingCredits += credits;
+            if (pendingCredits < 0) {
+                pendingCredits = Long.MAX_VALUE;
+            }
+        }
+        drainCredits();
+    }
+
+    /**
+     * 在锁外把累计的额度请求给上游，正在请求的线程会顺带发出其间新增的额度
+     */
+    private void drainCredits() {
+        Flow.Subscription currentSubscription;
+        long credits;
+        synchronized (this) {
+            if (requesting || cancelled || subscription == null || pendingCredits == 0) {
+                return;
+            }
+            requesting = true;
+            currentSubscription = subscription;
+            credits = pendingCredits;
+            pendingCredits = 0;
+        }
+        while (true) {
+            currentSubscription.request(credits);
+            synchronized (this) {
+                if (cancelled || pendingCredits == 0) {
+                    requesting = false;
+                    return;
+                }
+                credits = pendingCredits;
+                pendingCredits = 0;
+            }
+        }
+    }
+
+    /**
+     * 取消流（消费者取消或连接关闭）
+     */
+    public void cancel() {
+        if (cancelUpstream() && terminated.compareAndSet(false, true)) {
+            cancelHandler.run();
+        }
+    }
+
+    /**
+     * 以错误结束流：取消上游，并向消费者发送携带异常的结束帧
+     *
+     * @param throwable
+     */
+    public void fail(Throwable throwable) {
+        cancelUpstream();
+        onError(throwable);
+    }
+
+    /**
+     * 取消上游订阅
+     *
+     * @return 是否由本次调用取消
+     */
+    private boolean cancelUpstream() {
+        Flow.Subscription currentSubscription;
+        synchronized (this) {
+            if (cancelled) {
+                return false;
+            }
+            cancelled = true;
+            currentSubscription = subscription;
+        }
+        if (currentSubscription != null) {
+            currentSubscription.cancel();
+        }
+        return true;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        boolean rejected;
+        synchronized (this) {
+            rejected = this.subscription != null || cancelled;
+            if (!rejected) {
+                this.subscription = subscription;
+            }
+        }
+        if (rejected) {
+            subscription.cancel();
+            return;
+        }
+        drainCredits();
+    }
+
+    @Override
+    public void onNext(Object item) {
+        if (terminated.get()) {
+            return;
+        }
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(requestHeader.getMagic());
+        header.setVersion(requestHeader.getVersion());
+        header.setSerializer(requestHeader.getSerializer());
+        header.setCompressor(requestHeader.getCompressor());
+        header.setType((byte) ProtocolMessageTypeEnum.STREAM.getKey());
+        header.setStatus((byte) ProtocolMessageStatusEnum.OK.getValue());
+        header.setRequestId(requestHeader.getRequestId());
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setData(item);
+        rpcResponse.setDataType(item != null ? item.getClass() : null);
+        rpcResponse.setDataGenericType(elementGenericTypeName);
+        try {
+            writeBatcher.write(ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, rpcResponse)));
+        } catch (IOException | RuntimeException e) {
+            fail(new RuntimeException("流式元素编码错误", e));
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (terminated.compareAndSet(false, true)) {
+            terminalHandler.accept(throwable);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        if (terminated.compareAndSet(false, true)) {
+            terminalHandler.accept(null);
+        }
+    }
+}
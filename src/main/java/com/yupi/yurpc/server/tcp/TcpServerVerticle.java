@@ -0,0 +1,41 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.server.dispatcher.Dispatcher;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.net.NetServerOptions;
+
+/**
+ * TCP 服务器 Verticle
+ * 每个实例绑定一个事件循环，多个实例监听同一端口时由 Vert.x（或开启 SO_REUSEPORT 时由内核）分配连接
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class TcpServerVerticle extends AbstractVerticle {
+
+    private final int port;
+
+    private final NetServerOptions netServerOptions;
+
+    /**
+     * 所有实例共用的请求分发器
+     */
+    private final Dispatcher dispatcher;
+
+    public TcpServerVerticle(int port, NetServerOptions netServerOptions, Dispatcher dispatcher) {
+        this.port = port;
+        this.netServerOptions = netServerOptions;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        vertx.createNetServer(netServerOptions)
+                .connectHandler(new TcpServerHandler(dispatcher))
+                .listen(port)
+                .<Void>mapEmpty()
+                .onComplete(startPromise);
+    }
+}
@@ -0,0 +1,106 @@
+package com.yupi.yurpc.server.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetSocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TCP 写合并器
+ * 同一事件循环周期内排队的消息合并为一个复合 Buffer（不拷贝数据），只写入并 flush 一次，减少小包场景下的系统调用
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class TcpWriteBatcher {
+
+    private final NetSocket socket;
+
+    /**
+     * 连接所属的事件循环上下文，flush 在该上下文中执行
+     */
+    private final Context context;
+
+    /**
+     * 是否开启写合并，关闭时每条消息直接写出
+     */
+    private final boolean enabled;
+
+    /**
+     * 单次合并写出的最大字节数
+     */
+    private final int maxBatchBytes;
+
+    /**
+     * 待写出的消息队列
+     */
+    private final Queue<Buffer> pendingBuffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 是否已安排 flush
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    public TcpWriteBatcher(NetSocket socket, Context context, boolean enabled, int maxBatchBytes) {
+        this.socket = socket;
+        this.context = context;
+        this.enabled = enabled && context != null;
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    /**
+     * 写入消息（可在任意线程调用）
+     *
+     * @param buffer
+     */
+    public void write(Buffer buffer) {
+        if (!enabled) {
+            socket.write(buffer);
+            return;
+        }
+        pendingBuffers.offer(buffer);
+        // 本轮尚未安排 flush 时，投递到事件循环的下一个周期统一写出
+        if (flushScheduled.compareAndSet(false, true)) {
+            context.runOnContext(v -> flush());
+        }
+    }
+
+    /**
+     * 合并队列中的消息并写出
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        List<ByteBuf> batch = new ArrayList<>();
+        int batchBytes = 0;
+        Buffer buffer;
+        while ((buffer = pendingBuffers.poll()) != null) {
+            batch.add(buffer.getByteBuf());
+            batchBytes += buffer.length();
+            if (batchBytes >= maxBatchBytes) {
+                writeBatch(batch);
+                batch.clear();
+                batchBytes = 0;
+            }
+        }
+        writeBatch(batch);
+    }
+
+    private void writeBatch(List<ByteBuf> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (batch.size() == 1) {
+            socket.write(Buffer.buffer(batch.get(0)));
+            return;
+        }
+        socket.write(Buffer.buffer(Unpooled.wrappedBuffer(batch.toArray(new ByteBuf[0]))));
+    }
+}
@@ -2,21 +2,30 @@ package com.yupi.yurpc.server.tcp;
 
 import cn.hutool.core.util.IdUtil;
 import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.config.TcpConfig;
+import com.yupi.yurpc.exception.MethodIdNotFoundException;
 import com.yupi.yurpc.model.RpcRequest;
 import com.yupi.yurpc.model.RpcResponse;
 import com.yupi.yurpc.model.ServiceMetaInfo;
 import com.yupi.yurpc.protocol.*;
+import com.yupi.yurpc.serializer.SerializerNegotiator;
+import com.yupi.yurpc.utils.MethodIdUtils;
 import io.vertx.core.Vertx;
-import io.vertx.core.buffer.Buffer;
 import io.vertx.core.net.NetClient;
-import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.NetClientOptions;
 
-import java.io.IOException;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Vertx TCP 请求客户端
+ * 全局共享一个 Vert.x 实例，按服务提供者维护长连接池，连接复用并支持多路并发请求
  *
  * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
  * @learn <a href="https://codefather.cn">程序员鱼皮的编程宝典</a>
@@ -24,8 +33,17 @@ import java.util.concurrent.ExecutionException;
  */
 public class VertxTcpClient {
 
+    private static volatile Vertx vertx;
+
+    private static volatile NetClient netClient;
+
+    /**
+     * 连接池：服务提供者地址 => 连接池
+     */
+    private static final Map<String, TcpConnectionPool> CONNECTION_POOL_MAP = new ConcurrentHashMap<>();
+
     /**
-     * 发送请求
+     * 发送请求（同步等待响应）
      *
      * @param rpcRequest
      * @param serviceMetaInfo
@@ -34,57 +52,222 @@ public class VertxTcpClient {
      * @throws ExecutionException
      */
     public static RpcResponse doRequest(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo) throws InterruptedException, ExecutionException {
-        // 发送 TCP 请求
-        Vertx vertx = Vertx.vertx();
-        NetClient netClient = vertx.createNetClient();
-        CompletableFuture<RpcResponse> responseFuture = new CompletableFuture<>();
-        netClient.connect(serviceMetaInfo.getServicePort(), serviceMetaInfo.getServiceHost(),
-                result -> {
-                    if (!result.succeeded()) {
-                        System.err.println("Failed to connect to TCP server");
-                        return;
-                    }
-                    NetSocket socket = result.result();
-                    // 发送数据
-                    // 构造消息
-                    ProtocolMessage<RpcRequest> protocolMessage = new ProtocolMessage<>();
-                    ProtocolMessage.Header header = new ProtocolMessage.Header();
-                    header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
-                    header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
-                    header.setSerializer((byte) ProtocolMessageSerializerEnum.getEnumByValue(RpcApplication.getRpcConfig().getSerializer()).getKey());
-                    header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
-                    // 生成全局请求 ID
-                    header.setRequestId(IdUtil.getSnowflakeNextId());
-                    protocolMessage.setHeader(header);
-                    protocolMessage.setBody(rpcRequest);
-
-                    // 编码请求
-                    try {
-                        Buffer encodeBuffer = ProtocolMessageEncoder.encode(protocolMessage);
-                        socket.write(encodeBuffer);
-                    } catch (IOException e) {
-                        throw new RuntimeException("协议消息编码错误");
-                    }
+        return doRequestAsync(rpcRequest, serviceMetaInfo).get();
+    }
 
-                    // 接收响应
-                    TcpBufferHandlerWrapper bufferHandlerWrapper = new TcpBufferHandlerWrapper(
-                            buffer -> {
-                                try {
-                                    ProtocolMessage<RpcResponse> rpcResponseProtocolMessage =
-                                            (ProtocolMessage<RpcResponse>) ProtocolMessageDecoder.decode(buffer);
-                                    responseFuture.complete(rpcResponseProtocolMessage.getBody());
-                                } catch (IOException e) {
-                                    throw new RuntimeException("协议消息解码错误");
-                                }
-                            }
-                    );
-                    socket.handler(bufferHandlerWrapper);
+    /**
+     * 以已协商的序列化器发送请求（同步等待响应）
+     *
+     * @param rpcRequest
+     * @param serviceMetaInfo
+     * @param serializer      协商出的序列化器
+     * @return
+     * @throws InterruptedException
+     * @throws ExecutionException
+     */
+    public static RpcResponse doRequest(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo, String serializer)
+            throws InterruptedException, ExecutionException {
+        return doRequestAsync(rpcRequest, serviceMetaInfo, serializer).get();
+    }
+
+    /**
+     * 异步发送请求
+     * 请求写入连接后立即返回，响应到达时由 Vert.x 事件循环完成 future，不占用调用线程
+     * 服务提供者发布了请求的方法 id 时只发送方法 id 和参数，提供者无法识别时再发送完整请求
+     *
+     * @param rpcRequest
+     * @param serviceMetaInfo
+     * @return
+     */
+    public static CompletableFuture<RpcResponse> doRequestAsync(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo) {
+        // 按完整请求的服务名、方法名协商序列化器
+        return doRequestAsync(rpcRequest, serviceMetaInfo, SerializerNegotiator.select(RpcApplication.getRpcConfig(),
+                rpcRequest.getServiceName(), rpcRequest.getMethodName(), serviceMetaInfo));
+    }
 
+    /**
+     * 以已协商的序列化器异步发送请求（服务代理按方法缓存了协商结果，调用时不再协商）
+     *
+     * @param rpcRequest
+     * @param serviceMetaInfo
+     * @param serializer      协商出的序列化器
+     * @return
+     */
+    public static CompletableFuture<RpcResponse> doRequestAsync(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo, String serializer) {
+        int methodId = rpcRequest.getMethodId();
+        if (methodId == MethodIdUtils.NO_METHOD_ID || !serviceMetaInfo.supportsMethodId(methodId)) {
+            return send(rpcRequest, serviceMetaInfo, serializer);
+        }
+        RpcRequest compactRequest = RpcRequest.builder()
+                .methodId(methodId)
+                .args(rpcRequest.getArgs())
+                .build();
+        return send(compactRequest, serviceMetaInfo, serializer)
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof MethodIdNotFoundException) {
+                        return send(rpcRequest, serviceMetaInfo, serializer);
+                    }
+                    return CompletableFuture.failedFuture(cause);
                 });
+    }
+
+    /**
+     * 发送流式请求（服务方法返回 Flow.Publisher）
+     * 元素按消费者的 request(n) 分批拉取；流式请求总是携带完整签名，不使用方法 id
+     *
+     * @param rpcRequest
+     * @param serviceMetaInfo
+     * @return 元素发布者，订阅并请求元素后才真正发送请求
+     */
+    public static Flow.Publisher<Object> doStreamRequest(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo) {
+        return doStreamRequest(rpcRequest, serviceMetaInfo, SerializerNegotiator.select(RpcApplication.getRpcConfig(),
+                rpcRequest.getServiceName(), rpcRequest.getMethodName(), serviceMetaInfo));
+    }
+
+    /**
+     * 以已协商的序列化器发送流式请求
+     *
+     * @param rpcRequest
+     * @param serviceMetaInfo
+     * @param serializer      协商出的序列化器
+     * @return 元素发布者，订阅并请求元素后才真正发送请求
+     */
+    public static Flow.Publisher<Object> doStreamRequest(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo, String serializer) {
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        ProtocolMessage<RpcRequest> protocolMessage = buildProtocolMessage(rpcRequest, serializer);
+        return new TcpClientStream(() -> acquireConnection(serviceMetaInfo, rpcConfig.getTcp()), protocolMessage);
+    }
+
+    /**
+     * 构造协议消息并发送
+     *
+     * @param rpcRequest
+     * @param serviceMetaInfo
+     * @param serializer      协商出的序列化器
+     * @return
+     */
+    private static CompletableFuture<RpcResponse> send(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo, String serializer) {
+        TcpConfig tcpConfig = RpcApplication.getRpcConfig().getTcp();
+        ProtocolMessage<RpcRequest> protocolMessage = buildProtocolMessage(rpcRequest, serializer);
+        // 从连接池获取连接并发送
+        return acquireConnection(serviceMetaInfo, tcpConfig)
+                .thenCompose(connection -> connection.send(protocolMessage, tcpConfig.getRequestTimeout()));
+    }
+
+    /**
+     * 构造请求协议消息
+     *
+     * @param rpcRequest
+     * @param serializer 协商出的序列化器
+     * @return
+     */
+    private static ProtocolMessage<RpcRequest> buildProtocolMessage(RpcRequest rpcRequest, String serializer) {
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        ProtocolMessage<RpcRequest> protocolMessage = new ProtocolMessage<>();
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        ProtocolMessageSerializerEnum serializerEnum = ProtocolMessageSerializerEnum.getEnumByValue(serializer);
+        if (serializerEnum == null) {
+            throw new RuntimeException("序列化协议不存在：" + serializer);
+        }
+        header.setSerializer((byte) serializerEnum.getKey());
+        ProtocolMessageCompressorEnum compressorEnum = ProtocolMessageCompressorEnum.getEnumByValue(rpcConfig.getCompressor());
+        if (compressorEnum == null) {
+            throw new RuntimeException("压缩协议不存在：" + rpcConfig.getCompressor());
+        }
+        // 不压缩时仍使用旧版本协议，兼容未升级的服务提供者
+        header.setVersion(compressorEnum == ProtocolMessageCompressorEnum.NONE
+                ? ProtocolConstant.PROTOCOL_VERSION : ProtocolConstant.PROTOCOL_VERSION_COMPRESSION);
+        header.setCompressor((byte) compressorEnum.getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
+        // 生成全局请求 ID
+        header.setRequestId(IdUtil.getSnowflakeNextId());
+        protocolMessage.setHeader(header);
+        protocolMessage.setBody(rpcRequest);
+        return protocolMessage;
+    }
+
+    /**
+     * 关闭所有连接并释放 Vert.x 资源
+     */
+    public static synchronized void destroy() {
+        CONNECTION_POOL_MAP.values().forEach(TcpConnectionPool::close);
+        CONNECTION_POOL_MAP.clear();
+        if (netClient != null) {
+            netClient.close();
+            netClient = null;
+        }
+        if (vertx != null) {
+            vertx.close();
+            vertx = null;
+        }
+    }
 
-        RpcResponse rpcResponse = responseFuture.get();
-        // 记得关闭连接
-        netClient.close();
-        return rpcResponse;
+    /**
+     * 从服务提供者对应的连接池获取连接
+     * 取到刚被驱逐的连接池时将其移出并重新创建
+     *
+     * @param serviceMetaInfo
+     * @param tcpConfig
+     * @return
+     */
+    private static CompletableFuture<TcpClientConnection> acquireConnection(ServiceMetaInfo serviceMetaInfo, TcpConfig tcpConfig) {
+        String host = serviceMetaInfo.getServiceHost();
+        int port = serviceMetaInfo.getServicePort();
+        String address = host + ":" + port;
+        while (true) {
+            TcpConnectionPool connectionPool = CONNECTION_POOL_MAP.computeIfAbsent(address,
+                    key -> new TcpConnectionPool(getNetClient(tcpConfig), host, port, tcpConfig));
+            if (!connectionPool.isClosed()) {
+                return connectionPool.acquire();
+            }
+            CONNECTION_POOL_MAP.remove(address, connectionPool);
+        }
+    }
+
+    /**
+     * 驱逐并关闭空闲的连接池
+     * 下线的服务提供者不再被负载均衡选中，其连接池会在空闲时间后被回收
+     *
+     * @param idleTimeout 空闲时间（单位毫秒）
+     */
+    static void evictIdlePools(long idleTimeout) {
+        long now = System.currentTimeMillis();
+        CONNECTION_POOL_MAP.forEach((address, connectionPool) -> {
+            if (connectionPool.isIdle(now, idleTimeout) && CONNECTION_POOL_MAP.remove(address, connectionPool)) {
+                connectionPool.close();
+            }
+        });
+    }
+
+    /**
+     * 获取共享的 NetClient（双检锁懒加载）
+     *
+     * @param tcpConfig
+     * @return
+     */
+    private static NetClient getNetClient(TcpConfig tcpConfig) {
+        if (netClient == null) {
+            synchronized (VertxTcpClient.class) {
+                if (netClient == null) {
+                    vertx = Vertx.vertx();
+                    NetClientOptions netClientOptions = new NetClientOptions()
+                            .setConnectTimeout(tcpConfig.getConnectTimeout());
+                    // 读空闲超时：长时间收不到任何数据（包括心跳回应）时关闭连接
+                    if (tcpConfig.getIdleTimeout() > 0) {
+                        netClientOptions.setReadIdleTimeout((int) tcpConfig.getIdleTimeout())
+                                .setIdleTimeoutUnit(TimeUnit.MILLISECONDS);
+                    }
+                    netClient = vertx.createNetClient(netClientOptions);
+                    // 定期驱逐空闲的连接池，连接池在空闲 1~2 个周期后被关闭
+                    long poolIdleTimeout = tcpConfig.getPoolIdleTimeout();
+                    if (poolIdleTimeout > 0) {
+                        vertx.setPeriodic(poolIdleTimeout, id -> evictIdlePools(poolIdleTimeout));
+                    }
+                }
+            }
+        }
+        return netClient;
     }
 }
@@ -1,11 +1,21 @@
 package com.yupi.yurpc.server.tcp;
 
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.config.TcpConfig;
+import com.yupi.yurpc.server.dispatcher.Dispatcher;
+import com.yupi.yurpc.server.dispatcher.DispatcherFactory;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
-import io.vertx.core.net.NetServer;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.net.NetServerOptions;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Vertx TCP 服务器
+ * 按配置部署多个 {@link TcpServerVerticle} 实例共享监听端口，使请求处理分摊到多个事件循环（多核）上
  *
  * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
  * @learn <a href="https://codefather.cn">程序员鱼皮的编程宝典</a>
@@ -15,23 +25,48 @@ import lombok.extern.slf4j.Slf4j;
 public class VertxTcpServer {
 
     public void doStart(int port) {
-        // 创建 Vert.x 实例
-        Vertx vertx = Vertx.vertx();
-
-        // 创建 TCP 服务器
-        NetServer server = vertx.createNetServer();
-
-        // 处理请求
-        server.connectHandler(new TcpServerHandler());
-
-        // 启动 TCP 服务器并监听指定端口
-        server.listen(port, result -> {
-            if (result.succeeded()) {
-                log.info("TCP server started on port " + port);
-            } else {
-                log.info("Failed to start TCP server: " + result.cause());
-            }
-        });
+        RpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        TcpConfig tcpConfig = rpcConfig.getTcp();
+        int instances = tcpConfig.getServerInstances() > 0
+                ? tcpConfig.getServerInstances()
+                : Runtime.getRuntime().availableProcessors();
+
+        // 创建 Vert.x 实例，事件循环线程数不少于 Verticle 实例数
+        VertxOptions vertxOptions = new VertxOptions()
+                .setPreferNativeTransport(tcpConfig.isNativeTransport())
+                .setEventLoopPoolSize(Math.max(instances, VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE));
+        Vertx vertx = Vertx.vertx(vertxOptions);
+        if (tcpConfig.isNativeTransport() && !vertx.isNativeTransportEnabled()) {
+            log.warn("native transport unavailable, fallback to NIO: {}", String.valueOf(vertx.unavailableNativeTransportCause()));
+        }
+
+        // TCP 服务器选项
+        NetServerOptions netServerOptions = new NetServerOptions()
+                .setTcpNoDelay(tcpConfig.isTcpNoDelay())
+                .setReusePort(tcpConfig.isReusePort());
+        // 读空闲超时：客户端心跳停止（宕机或半开连接）后关闭连接
+        if (tcpConfig.getIdleTimeout() > 0) {
+            netServerOptions.setReadIdleTimeout((int) tcpConfig.getIdleTimeout())
+                    .setIdleTimeoutUnit(TimeUnit.MILLISECONDS);
+        }
+        if (tcpConfig.getSendBufferSize() > 0) {
+            netServerOptions.setSendBufferSize(tcpConfig.getSendBufferSize());
+        }
+        if (tcpConfig.getReceiveBufferSize() > 0) {
+            netServerOptions.setReceiveBufferSize(tcpConfig.getReceiveBufferSize());
+        }
+
+        // 部署多个 Verticle 实例，共享同一端口和分发器
+        Dispatcher dispatcher = DispatcherFactory.getInstance(rpcConfig.getDispatcher());
+        vertx.deployVerticle(() -> new TcpServerVerticle(port, netServerOptions, dispatcher),
+                new DeploymentOptions().setInstances(instances), result -> {
+                    if (result.succeeded()) {
+                        log.info("TCP server started on port {}, instances = {}, nativeTransport = {}",
+                                port, instances, vertx.isNativeTransportEnabled());
+                    } else {
+                        log.info("Failed to start TCP server: " + result.cause());
+                    }
+                });
     }
 
     public static void main(String[] args) {
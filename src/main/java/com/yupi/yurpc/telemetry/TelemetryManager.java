@@ -2,6 +2,8 @@ package com.yupi.yurpc.telemetry;
 
 import com.yupi.yurpc.config.TelemetryConfig;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
@@ -26,7 +28,11 @@ import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpServer;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * 可观测性管理器，负责初始化指标与链路追踪
@@ -41,6 +47,19 @@ public final class TelemetryManager {
 
     private static final String METRIC_TIMER = "rpc.call.duration";
     private static final String METRIC_COUNTER = "rpc.call.total";
+    private static final String METRIC_DISPATCH_QUEUE_DEPTH = "rpc.server.dispatch.queue.depth";
+    private static final String METRIC_DISPATCH_REJECTED = "rpc.server.dispatch.rejected";
+    private static final String METRIC_DISCOVERY_CACHE = "rpc.client.discovery.cache";
+
+    /**
+     * 分发器积压深度：分发器名称 => 取值函数（重新初始化指标注册表后需要重新绑定）
+     */
+    private static final Map<String, Supplier<Number>> DISPATCHER_GAUGES = new ConcurrentHashMap<>();
+
+    /**
+     * 服务发现缓存计数：[注册中心, 结果] => 取值函数（重新初始化指标注册表后需要重新绑定）
+     */
+    private static final Map<List<String>, Supplier<Number>> DISCOVERY_CACHE_COUNTERS = new ConcurrentHashMap<>();
 
     private static volatile boolean enabled = false;
     private static MeterRegistry meterRegistry = new SimpleMeterRegistry();
@@ -67,11 +86,13 @@ public final class TelemetryManager {
             meterRegistry = new SimpleMeterRegistry();
             tracer = OpenTelemetry.noop().getTracer(applicationName);
             openTelemetrySdk = null;
+            bindRegisteredMeters();
             log.info("telemetry disabled");
             return;
         }
         enabled = true;
         meterRegistry = createMeterRegistry(telemetryConfig);
+        bindRegisteredMeters();
         tracer = createTracer(telemetryConfig, applicationName);
         log.info("telemetry enabled, metricsExporter={}, tracingExporter={}",
                 telemetryConfig.getMetricsExporter(), telemetryConfig.getTracingExporter());
@@ -187,6 +208,61 @@ public final class TelemetryManager {
         }
     }
 
+    /**
+     * 注册服务端分发器的积压深度指标
+     *
+     * @param dispatcher 分发器名称
+     * @param queueDepth 积压深度取值函数
+     */
+    public static void registerDispatcherGauge(String dispatcher, Supplier<Number> queueDepth) {
+        DISPATCHER_GAUGES.put(dispatcher, queueDepth);
+        bindDispatcherGauge(dispatcher, queueDepth);
+    }
+
+    /**
+     * 记录一次服务端分发器拒绝
+     *
+     * @param dispatcher 分发器名称
+     */
+    public static void recordDispatcherRejection(String dispatcher) {
+        Counter.builder(METRIC_DISPATCH_REJECTED)
+                .description("服务端分发器拒绝的请求数")
+                .tags("rpc.system", "yurpc", "rpc.dispatcher", dispatcher)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 注册服务发现缓存的命中 / 未命中计数
+     *
+     * @param registry 注册中心名称
+     * @param result   hit 或 miss
+     * @param count    累计次数取值函数
+     */
+    public static void registerDiscoveryCacheCounter(String registry, String result, Supplier<Number> count) {
+        DISCOVERY_CACHE_COUNTERS.put(List.of(registry, result), count);
+        bindDiscoveryCacheCounter(List.of(registry, result), count);
+    }
+
+    private static void bindRegisteredMeters() {
+        DISPATCHER_GAUGES.forEach(TelemetryManager::bindDispatcherGauge);
+        DISCOVERY_CACHE_COUNTERS.forEach(TelemetryManager::bindDiscoveryCacheCounter);
+    }
+
+    private static void bindDiscoveryCacheCounter(List<String> registryAndResult, Supplier<Number> count) {
+        FunctionCounter.builder(METRIC_DISCOVERY_CACHE, count, supplier -> supplier.get().doubleValue())
+                .description("服务发现本地缓存的命中 / 未命中次数")
+                .tags("rpc.system", "yurpc", "rpc.registry", registryAndResult.get(0), "result", registryAndResult.get(1))
+                .register(meterRegistry);
+    }
+
+    private static void bindDispatcherGauge(String dispatcher, Supplier<Number> queueDepth) {
+        Gauge.builder(METRIC_DISPATCH_QUEUE_DEPTH, queueDepth)
+                .description("服务端分发器积压的请求数")
+                .tags("rpc.system", "yurpc", "rpc.dispatcher", dispatcher)
+                .register(meterRegistry);
+    }
+
     /**
      * 释放资源
      */
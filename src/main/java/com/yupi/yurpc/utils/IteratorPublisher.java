@@ -0,0 +1,152 @@
+package com.yupi.yurpc.utils;
+
+import java.util.Iterator;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 基于迭代器的 Flow.Publisher
+ * 只在订阅者请求时从迭代器拉取元素，未被请求的元素不会生成，适合作为流式服务方法的返回值
+ * 每次订阅都会重新获取迭代器；元素在调用 request 的线程上拉取（服务端为分发器线程），迭代器可以是阻塞的数据源
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class IteratorPublisher<T> implements Flow.Publisher<T> {
+
+    private final Supplier<? extends Iterator<? extends T>> iteratorSupplier;
+
+    public IteratorPublisher(Supplier<? extends Iterator<? extends T>> iteratorSupplier) {
+        this.iteratorSupplier = iteratorSupplier;
+    }
+
+    /**
+     * 基于 Iterable 创建
+     *
+     * @param iterable
+     * @param <T>
+     * @return
+     */
+    public static <T> IteratorPublisher<T> fromIterable(Iterable<? extends T> iterable) {
+        return new IteratorPublisher<>(iterable::iterator);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Iterator<? extends T> iterator;
+        try {
+            iterator = iteratorSupplier.get();
+        } catch (Throwable e) {
+            subscriber.onSubscribe(new IteratorSubscription<>(subscriber, null));
+            subscriber.onError(e);
+            return;
+        }
+        subscriber.onSubscribe(new IteratorSubscription<>(subscriber, iterator));
+    }
+
+    /**
+     * 订阅：累计请求数，由第一个使请求数从 0 变为正数的调用方负责发送，避免 onNext 中再次 request 导致递归
+     */
+    private static class IteratorSubscription<T> implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+
+        private final Iterator<? extends T> iterator;
+
+        /**
+         * 尚未发送的请求数
+         */
+        private final AtomicLong requested = new AtomicLong();
+
+        /**
+         * 已取消或已结束
+         */
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private IteratorSubscription(Flow.Subscriber<? super T> subscriber, Iterator<? extends T> iterator) {
+            this.subscriber = subscriber;
+            this.iterator = iterator;
+            if (iterator == null) {
+                done.set(true);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                if (done.compareAndSet(false, true)) {
+                    subscriber.onError(new IllegalArgumentException("请求的元素数必须为正数：" + n));
+                }
+                return;
+            }
+            long previous = requested.getAndAccumulate(n, (current, added) -> {
+                long sum = current + added;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+            if (previous == 0) {
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            done.set(true);
+        }
+
+        private void drain() {
+            long remaining = requested.get();
+            while (true) {
+                long emitted = 0;
+                while (emitted < remaining) {
+                    if (done.get() || completeIfExhausted()) {
+                        return;
+                    }
+                    T next;
+                    try {
+                        next = iterator.next();
+                    } catch (Throwable e) {
+                        if (done.compareAndSet(false, true)) {
+                            subscriber.onError(e);
+                        }
+                        return;
+                    }
+                    subscriber.onNext(next);
+                    emitted++;
+                }
+                // 元素恰好发完时立即结束，无需等待下一次请求
+                if (done.get() || completeIfExhausted()) {
+                    return;
+                }
+                remaining = requested.addAndGet(-emitted);
+                if (remaining == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 迭代器没有更多元素时结束订阅
+         *
+         * @return 是否已结束
+         */
+        private boolean completeIfExhausted() {
+            try {
+                if (iterator.hasNext()) {
+                    return false;
+                }
+            } catch (Throwable e) {
+                if (done.compareAndSet(false, true)) {
+                    subscriber.onError(e);
+                }
+                return true;
+            }
+            if (done.compareAndSet(false, true)) {
+                subscriber.onComplete();
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.yupi.yurpc.utils;
+
+import cn.hutool.core.util.HashUtil;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 方法 id 工具类
+ * 方法 id 由服务名、方法名和参数类型计算得出，服务提供者和消费者无需握手即可得到相同的 id
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">程序员鱼皮的编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+public class MethodIdUtils {
+
+    /**
+     * 未使用方法 id
+     */
+    public static final int NO_METHOD_ID = 0;
+
+    /**
+     * 消费端方法 id 缓存：接口方法 => 方法 id
+     */
+    private static final Map<Method, Integer> METHOD_ID_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 获取接口方法的 id（以声明该方法的接口作为服务名）
+     *
+     * @param method
+     * @return
+     */
+    public static int getMethodId(Method method) {
+        return METHOD_ID_CACHE.computeIfAbsent(method,
+                key -> getMethodId(key.getDeclaringClass().getName(), key.getName(), key.getParameterTypes()));
+    }
+
+    /**
+     * 计算方法 id
+     *
+     * @param serviceName
+     * @param methodName
+     * @param parameterTypes
+     * @return 非 0 的方法 id
+     */
+    public static int getMethodId(String serviceName, String methodName, Class<?>[] parameterTypes) {
+        StringBuilder signature = new StringBuilder(serviceName).append('#').append(methodName).append('(');
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                signature.append(',');
+            }
+            signature.append(parameterTypes[i].getName());
+        }
+        signature.append(')');
+        int methodId = HashUtil.murmur32(signature.toString().getBytes(StandardCharsets.UTF_8));
+        return methodId == NO_METHOD_ID ? 1 : methodId;
+    }
+}
@@ -48,4 +48,44 @@ public class LoadBalancerTest {
         System.out.println(serviceMetaInfo);
         Assertions.assertNotNull(serviceMetaInfo);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void consistentHashRebuildsRingWhenNodesChange() {
+        Map<String, Object> requestParams = Map.of("methodName", "apple");
+        ServiceMetaInfo serviceMetaInfo1 = new ServiceMetaInfo();
+        serviceMetaInfo1.setServiceName("myService");
+        serviceMetaInfo1.setServiceHost("localhost");
+        serviceMetaInfo1.setServicePort(1234);
+        ServiceMetaInfo serviceMetaInfo2 = new ServiceMetaInfo();
+        serviceMetaInfo2.setServiceName("myService");
+        serviceMetaInfo2.setServiceHost("yupi.icu");
+        serviceMetaInfo2.setServicePort(80);
+        LoadBalancer consistentHashLoadBalancer = new ConsistentHashLoadBalancer();
+        ServiceMetaInfo selected = consistentHashLoadBalancer.select(requestParams, List.of(serviceMetaInfo1, serviceMetaInfo2));
+
+        // 被选中的节点下线后，新的节点列表不会再选中它
+        ServiceMetaInfo remaining = selected == serviceMetaInfo1 ? serviceMetaInfo2 : serviceMetaInfo1;
+        Assertions.assertSame(remaining, consistentHashLoadBalancer.select(requestParams, List.of(remaining)));
+    }
+
+    @Test
+    public void consistentHashKeepsRingPerService() {
+        Map<String, Object> requestParams = Map.of("methodName", "apple");
+        ServiceMetaInfo userNode = new ServiceMetaInfo();
+        userNode.setServiceName("userService");
+        userNode.setServiceHost("localhost");
+        userNode.setServicePort(1234);
+        ServiceMetaInfo orderNode = new ServiceMetaInfo();
+        orderNode.setServiceName("orderService");
+        orderNode.setServiceHost("localhost");
+        orderNode.setServicePort(5678);
+        List<ServiceMetaInfo> userNodes = List.of(userNode);
+        List<ServiceMetaInfo> orderNodes = List.of(orderNode);
+        LoadBalancer consistentHashLoadBalancer = new ConsistentHashLoadBalancer();
+        // 交替调用不同服务，各自选中自己的节点
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertSame(userNode, consistentHashLoadBalancer.select(requestParams, userNodes));
+            Assertions.assertSame(orderNode, consistentHashLoadBalancer.select(requestParams, orderNodes));
+        }
+    }
+}
@@ -44,4 +44,89 @@ public class ProtocolMessageTest {
         Assertions.assertNotNull(message);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testEncodeAndDecodeWithAllSerializers() throws IOException {
+        for (ProtocolMessageSerializerEnum serializerEnum : ProtocolMessageSerializerEnum.values()) {
+            ProtocolMessage.Header header = new ProtocolMessage.Header();
+            header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+            header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+            header.setSerializer((byte) serializerEnum.getKey());
+            header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
+            header.setRequestId(IdUtil.getSnowflakeNextId());
+            RpcRequest rpcRequest = new RpcRequest();
+            rpcRequest.setServiceName("myService");
+            rpcRequest.setMethodName("myMethod");
+            rpcRequest.setServiceVersion(RpcConstant.DEFAULT_SERVICE_VERSION);
+            rpcRequest.setParameterTypes(new Class[]{String.class, Integer.class});
+            rpcRequest.setArgs(new Object[]{"aaa", 1});
+
+            Buffer encodeBuffer = ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, rpcRequest));
+            // 回填的 body 长度与实际写入的字节数一致
+            Assertions.assertEquals(encodeBuffer.length() - ProtocolConstant.MESSAGE_HEADER_LENGTH, encodeBuffer.getInt(13));
+            ProtocolMessage<?> message = ProtocolMessageDecoder.decode(encodeBuffer);
+            RpcRequest decoded = (RpcRequest) message.getBody();
+            Assertions.assertEquals(header.getRequestId(), message.getHeader().getRequestId(), serializerEnum.getValue());
+            Assertions.assertEquals("myMethod", decoded.getMethodName(), serializerEnum.getValue());
+            Assertions.assertArrayEquals(new Object[]{"aaa", 1}, decoded.getArgs(), serializerEnum.getValue());
+        }
+    }
+
+    @Test
+    public void testEncodeAndDecodeWithAllCompressors() throws IOException {
+        String largeArg = "user-info-".repeat(500);
+        for (ProtocolMessageCompressorEnum compressorEnum : ProtocolMessageCompressorEnum.values()) {
+            for (String arg : new String[]{"small", largeArg}) {
+                ProtocolMessage.Header header = new ProtocolMessage.Header();
+                header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+                header.setVersion(ProtocolConstant.PROTOCOL_VERSION_COMPRESSION);
+                header.setSerializer((byte) ProtocolMessageSerializerEnum.KRYO.getKey());
+                header.setCompressor((byte) compressorEnum.getKey());
+                header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
+                header.setRequestId(IdUtil.getSnowflakeNextId());
+                RpcRequest rpcRequest = new RpcRequest();
+                rpcRequest.setMethodName("myMethod");
+                rpcRequest.setParameterTypes(new Class[]{String.class});
+                rpcRequest.setArgs(new Object[]{arg});
+
+                Buffer encodeBuffer = ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, rpcRequest), 1024);
+                Assertions.assertEquals(encodeBuffer.length() - ProtocolConstant.MESSAGE_HEADER_LENGTH, encodeBuffer.getInt(13));
+                if (compressorEnum != ProtocolMessageCompressorEnum.NONE) {
+                    // 小于阈值的消息体不压缩
+                    boolean compressed = encodeBuffer.getInt(ProtocolConstant.MESSAGE_HEADER_LENGTH) != ProtocolConstant.UNCOMPRESSED_LENGTH;
+                    Assertions.assertEquals(arg == largeArg, compressed, compressorEnum.getValue());
+                }
+                ProtocolMessage<?> message = ProtocolMessageDecoder.decode(encodeBuffer);
+                Assertions.assertEquals(compressorEnum.getKey(), message.getHeader().getCompressor());
+                Assertions.assertEquals(ProtocolMessageSerializerEnum.KRYO.getKey(), message.getHeader().getSerializer());
+                Assertions.assertEquals(arg, ((RpcRequest) message.getBody()).getArgs()[0], compressorEnum.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testRejectInvalidOriginalLength() throws IOException {
+        String largeArg = "user-info-".repeat(500);
+        for (ProtocolMessageCompressorEnum compressorEnum : ProtocolMessageCompressorEnum.values()) {
+            if (compressorEnum == ProtocolMessageCompressorEnum.NONE) {
+                continue;
+            }
+            ProtocolMessage.Header header = new ProtocolMessage.Header();
+            header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+            header.setVersion(ProtocolConstant.PROTOCOL_VERSION_COMPRESSION);
+            header.setSerializer((byte) ProtocolMessageSerializerEnum.KRYO.getKey());
+            header.setCompressor((byte) compressorEnum.getKey());
+            header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
+            RpcRequest rpcRequest = new RpcRequest();
+            rpcRequest.setMethodName("myMethod");
+            rpcRequest.setArgs(new Object[]{largeArg});
+            Buffer encodeBuffer = ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, rpcRequest), 1024);
+
+            // 对端伪造的原始长度（负数或超过上限）在解压前被拒绝
+            for (int originalLength : new int[]{-2, Integer.MAX_VALUE, 64 * 1024 + 1}) {
+                encodeBuffer.setInt(ProtocolConstant.MESSAGE_HEADER_LENGTH, originalLength);
+                Assertions.assertThrows(IOException.class,
+                        () -> ProtocolMessageDecoder.decode(encodeBuffer, 64 * 1024), compressorEnum.getValue());
+            }
+        }
+    }
+}
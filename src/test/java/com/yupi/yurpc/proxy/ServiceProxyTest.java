@@ -0,0 +1,98 @@
+package com.yupi.yurpc.proxy;
+
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.model.ServiceMetaInfo;
+import com.yupi.yurpc.registry.LocalRegistry;
+import com.yupi.yurpc.registry.Registry;
+import com.yupi.yurpc.registry.RegistryFactory;
+import com.yupi.yurpc.server.tcp.VertxTcpServer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 服务代理测试（本机回环，基于内存注册中心）
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class ServiceProxyTest {
+
+    /**
+     * 测试用服务接口，同时包含同步和异步方法
+     */
+    public interface EchoService {
+
+        String echo(String message);
+
+        CompletableFuture<String> echoAsync(String message);
+    }
+
+    public static class EchoServiceImpl implements EchoService {
+
+        @Override
+        public String echo(String message) {
+            return message;
+        }
+
+        @Override
+        public CompletableFuture<String> echoAsync(String message) {
+            return CompletableFuture.supplyAsync(() -> message);
+        }
+    }
+
+    @BeforeAll
+    static void startProvider() throws Exception {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+        LocalRegistry.register(EchoService.class.getName(), EchoServiceImpl.class);
+        new VertxTcpServer().doStart(port);
+        waitForPort(port);
+
+        Registry registry = RegistryFactory.getInstance(RpcApplication.getRpcConfig().getRegistryConfig().getRegistry());
+        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
+        serviceMetaInfo.setServiceName(EchoService.class.getName());
+        serviceMetaInfo.setServiceHost("localhost");
+        serviceMetaInfo.setServicePort(port);
+        registry.register(serviceMetaInfo);
+    }
+
+    @Test
+    void syncInvoke() {
+        EchoService echoService = ServiceProxyFactory.getProxy(EchoService.class);
+        Assertions.assertEquals("hello", echoService.echo("hello"));
+    }
+
+    @Test
+    void asyncInvoke() {
+        EchoService echoService = ServiceProxyFactory.getProxy(EchoService.class);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(echoService.echoAsync("hello-" + i));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            Assertions.assertEquals("hello-" + i, futures.get(i).join());
+        }
+    }
+
+    private static void waitForPort(int port) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            try (Socket ignored = new Socket("localhost", port)) {
+                return;
+            } catch (IOException e) {
+                Thread.sleep(100L);
+            }
+        }
+        Assertions.fail("tcp server not started on port " + port);
+    }
+}
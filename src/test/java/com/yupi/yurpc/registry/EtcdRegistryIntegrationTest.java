@@ -65,6 +65,35 @@ class EtcdRegistryIntegrationTest {
         List<ServiceMetaInfo> serviceMetaInfos = registry.serviceDiscovery(serviceMetaInfo.getServiceKey());
         Assertions.assertFalse(serviceMetaInfos.isEmpty());
     }
-}
 
+    @Test
+    void prefixWatchPicksUpNewProvider() throws Exception {
+        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
+        serviceMetaInfo.setServiceName("watchService");
+        serviceMetaInfo.setServiceVersion("1.0");
+        serviceMetaInfo.setServiceHost("127.0.0.1");
+        serviceMetaInfo.setServicePort(9091);
+        registry.register(serviceMetaInfo);
+        String serviceKey = serviceMetaInfo.getServiceKey();
+        Assertions.assertEquals(1, registry.serviceDiscovery(serviceKey).size());
 
+        // 新上线的节点经前缀监听增量进入缓存，下线的节点从缓存移除
+        ServiceMetaInfo newServiceMetaInfo = new ServiceMetaInfo();
+        newServiceMetaInfo.setServiceName("watchService");
+        newServiceMetaInfo.setServiceVersion("1.0");
+        newServiceMetaInfo.setServiceHost("127.0.0.1");
+        newServiceMetaInfo.setServicePort(9092);
+        registry.register(newServiceMetaInfo);
+        awaitNodeCount(serviceKey, 2);
+        registry.unRegister(serviceMetaInfo);
+        awaitNodeCount(serviceKey, 1);
+    }
+
+    private void awaitNodeCount(String serviceKey, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (registry.serviceDiscovery(serviceKey).size() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assertions.assertEquals(expected, registry.serviceDiscovery(serviceKey).size());
+    }
+}
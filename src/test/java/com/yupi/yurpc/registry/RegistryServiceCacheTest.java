@@ -0,0 +1,85 @@
+package com.yupi.yurpc.registry;
+
+import com.yupi.yurpc.model.ServiceMetaInfo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * 注册中心服务缓存单元测试
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class RegistryServiceCacheTest {
+
+    @Test
+    void cacheIsIsolatedPerServiceKey() {
+        RegistryServiceCache cache = new RegistryServiceCache();
+        ServiceMetaInfo userNode = buildServiceMetaInfo("userService", 8080);
+        ServiceMetaInfo orderNode = buildServiceMetaInfo("orderService", 8081);
+        cache.writeCache(userNode.getServiceKey(), List.of(userNode));
+        cache.writeCache(orderNode.getServiceKey(), List.of(orderNode));
+
+        // 某个服务的节点下线不影响其他服务
+        cache.removeNode(userNode.getServiceNodeKey());
+        Assertions.assertTrue(cache.readCache(userNode.getServiceKey()).isEmpty());
+        Assertions.assertEquals(List.of(orderNode), cache.readCache(orderNode.getServiceKey()));
+        Assertions.assertNull(cache.readCache("unknownService:1.0"));
+        Assertions.assertEquals(2, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void incrementalUpdatePublishesNewSnapshot() {
+        RegistryServiceCache cache = new RegistryServiceCache();
+        ServiceMetaInfo node1 = buildServiceMetaInfo("userService", 8080);
+        String serviceKey = node1.getServiceKey();
+        cache.writeCache(serviceKey, List.of(node1));
+        List<ServiceMetaInfo> snapshot = cache.readCache(serviceKey);
+
+        ServiceMetaInfo node2 = buildServiceMetaInfo("userService", 8081);
+        cache.putNode(node2);
+        Assertions.assertEquals(List.of(node1, node2), cache.readCache(serviceKey));
+        // 已读到的快照不可变，也不受后续变更影响
+        Assertions.assertEquals(List.of(node1), snapshot);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.add(node2));
+
+        // 节点信息变更时原位替换
+        ServiceMetaInfo updatedNode1 = buildServiceMetaInfo("userService", 8080);
+        updatedNode1.setServiceGroup("gray");
+        cache.putNode(updatedNode1);
+        Assertions.assertEquals("gray", cache.readCache(serviceKey).get(0).getServiceGroup());
+
+        // 未缓存的服务不接收增量更新，下次发现时完整查询
+        cache.putNode(buildServiceMetaInfo("orderService", 8082));
+        Assertions.assertNull(cache.readCache("orderService:1.0"));
+    }
+
+    @Test
+    void refreshReplacesWholeSnapshot() {
+        RegistryServiceCache cache = new RegistryServiceCache();
+        ServiceMetaInfo node1 = buildServiceMetaInfo("userService", 8080);
+        ServiceMetaInfo node2 = buildServiceMetaInfo("userService", 8081);
+        String serviceKey = node1.getServiceKey();
+
+        // 推送的列表会创建缓存，之后的推送整体替换
+        cache.refreshCache(serviceKey, List.of(node1, node2));
+        Assertions.assertEquals(List.of(node1, node2), cache.readCache(serviceKey));
+        cache.refreshCache(serviceKey, List.of(node2));
+        Assertions.assertEquals(List.of(node2), cache.readCache(serviceKey));
+        cache.refreshCache(serviceKey, List.of());
+        Assertions.assertTrue(cache.readCache(serviceKey).isEmpty());
+    }
+
+    private ServiceMetaInfo buildServiceMetaInfo(String serviceName, int port) {
+        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
+        serviceMetaInfo.setServiceName(serviceName);
+        serviceMetaInfo.setServiceVersion("1.0");
+        serviceMetaInfo.setServiceHost("127.0.0.1");
+        serviceMetaInfo.setServicePort(port);
+        return serviceMetaInfo;
+    }
+}
@@ -0,0 +1,139 @@
+package com.yupi.yurpc.serializer;
+
+import com.yupi.yurpc.example.UserInfo;
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+import lombok.Data;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 紧凑二进制序列化器测试
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class BinarySerializerTest {
+
+    private final BinarySerializer serializer = new BinarySerializer();
+
+    @Test
+    void primitiveRequestIsCompact() throws Exception {
+        RpcRequest rpcRequest = RpcRequest.builder()
+                .serviceName("com.yupi.yurpc.example.CalcService")
+                .methodName("compute")
+                .parameterTypes(new Class[]{double.class, double.class, String.class})
+                .args(new Object[]{1.5, 2.5, "add"})
+                .build();
+        byte[] bytes = serializer.serialize(rpcRequest);
+        Assertions.assertEquals(rpcRequest, serializer.deserialize(bytes, RpcRequest.class));
+
+        RpcRequest compactRequest = RpcRequest.builder().methodId(42).args(new Object[]{1.5, 2.5, "add"}).build();
+        byte[] compactBytes = serializer.serialize(compactRequest);
+        // 方法 id(4) + 3 个 null 字符串 + 无参数类型 + 参数个数 + 2 个 double(1 + 8) + 字符串(1 + 1 + 3)
+        Assertions.assertEquals(4 + 3 + 1 + 1 + 18 + 5, compactBytes.length);
+        RpcRequest decoded = serializer.deserialize(compactBytes, RpcRequest.class);
+        Assertions.assertNull(decoded.getParameterTypes());
+        Assertions.assertArrayEquals(compactRequest.getArgs(), decoded.getArgs());
+    }
+
+    @Test
+    void pojoListWritesClassNameOnce() throws Exception {
+        List<UserInfo> users = new ArrayList<>();
+        for (long i = 0; i < 10; i++) {
+            users.add(new UserInfo(i, "user-" + i, 18, i % 2 == 0));
+        }
+        users.add(null);
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setData(users);
+        rpcResponse.setDataType(ArrayList.class);
+        rpcResponse.setMessage("ok");
+        byte[] bytes = serializer.serialize(rpcResponse);
+        String content = new String(bytes, StandardCharsets.ISO_8859_1);
+        Assertions.assertEquals(content.indexOf(UserInfo.class.getName()), content.lastIndexOf(UserInfo.class.getName()));
+        Assertions.assertEquals(rpcResponse, serializer.deserialize(bytes, RpcResponse.class));
+    }
+
+    @Test
+    void mapsFallbackTypesAndExceptions() throws Exception {
+        RpcRequest rpcRequest = RpcRequest.builder()
+                .serviceName("svc")
+                .methodName("m")
+                .parameterTypes(new Class[]{Map.class, Optional.class, byte[].class, char.class})
+                .args(new Object[]{Map.of("a", 1L), Optional.of("x"), new byte[]{1, 2}, 'c'})
+                .build();
+        Assertions.assertEquals(rpcRequest, serializer.deserialize(serializer.serialize(rpcRequest), RpcRequest.class));
+
+        RpcResponse errorResponse = new RpcResponse();
+        errorResponse.setException(new IllegalStateException("boom"));
+        Exception exception = serializer.deserialize(serializer.serialize(errorResponse), RpcResponse.class).getException();
+        Assertions.assertInstanceOf(IllegalStateException.class, exception);
+        Assertions.assertEquals("boom", exception.getMessage());
+    }
+
+    @Test
+    void concreteCollectionTypesArePreserved() throws Exception {
+        CollectionHolder holder = new CollectionHolder();
+        holder.setLinkedList(new LinkedList<>(List.of("a", "b")));
+        holder.setTreeSet(new TreeSet<>(List.of(3, 1, 2)));
+        holder.setTreeMap(new TreeMap<>(Map.of("b", 2L, "a", 1L)));
+        holder.setList(List.of("x"));
+        CollectionHolder decoded = serializer.deserialize(serializer.serialize(holder), CollectionHolder.class);
+        Assertions.assertEquals(holder, decoded);
+        Assertions.assertInstanceOf(ArrayList.class, decoded.getList());
+
+        RpcRequest rpcRequest = RpcRequest.builder()
+                .serviceName("svc")
+                .methodName("m")
+                .parameterTypes(new Class[]{LinkedList.class, TreeMap.class})
+                .args(new Object[]{holder.getLinkedList(), holder.getTreeMap()})
+                .build();
+        Object[] args = serializer.deserialize(serializer.serialize(rpcRequest), RpcRequest.class).getArgs();
+        Assertions.assertInstanceOf(LinkedList.class, args[0]);
+        Assertions.assertInstanceOf(TreeMap.class, args[1]);
+    }
+
+    @Test
+    void malformedInputFailsWithIOException() throws Exception {
+        // 字节数组长度为 0xFFFFFFFF（变长整数），解码为负数
+        byte[] negativeLength = {11, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        Assertions.assertThrows(IOException.class, () -> serializer.deserialize(negativeLength, Object.class));
+        // 参数个数远超剩余字节数
+        byte[] request = serializer.serialize(RpcRequest.builder().methodId(1).args(new Object[0]).build());
+        request[request.length - 1] = 0x7F;
+        Assertions.assertThrows(IOException.class, () -> serializer.deserialize(request, RpcRequest.class));
+
+        // 嵌套过深的列表
+        byte[] nested = new byte[20000];
+        for (int i = 0; i < nested.length; i += 2) {
+            nested[i] = 12;
+            nested[i + 1] = 1;
+        }
+        Assertions.assertThrows(IOException.class, () -> serializer.deserialize(nested, Object.class));
+        List<Object> shallow = List.of(List.of(List.of("x")));
+        Assertions.assertEquals(shallow, serializer.deserialize(serializer.serialize(shallow), Object.class));
+    }
+
+    @Data
+    static class CollectionHolder {
+
+        private LinkedList<String> linkedList;
+
+        private TreeSet<Integer> treeSet;
+
+        private TreeMap<String, Long> treeMap;
+
+        private List<String> list;
+    }
+}
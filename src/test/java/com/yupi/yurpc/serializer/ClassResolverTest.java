@@ -0,0 +1,46 @@
+package com.yupi.yurpc.serializer;
+
+import com.yupi.yurpc.example.UserInfo;
+import com.yupi.yurpc.model.RpcRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * 类解析器测试
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class ClassResolverTest {
+
+    @Test
+    void descriptorsAndClassNamesResolveToSameClass() throws Exception {
+        for (Class<?> clazz : new Class<?>[]{int.class, long.class, String.class, List.class, byte[].class, UserInfo.class}) {
+            Assertions.assertSame(clazz, ClassResolver.resolve(ClassResolver.toDescriptor(clazz)));
+            Assertions.assertSame(clazz, ClassResolver.resolve(clazz.getName()));
+        }
+        Assertions.assertEquals("@i", ClassResolver.toDescriptor(int.class));
+        Assertions.assertEquals(UserInfo.class.getName(), ClassResolver.toDescriptor(UserInfo.class));
+        Assertions.assertThrows(ClassNotFoundException.class, () -> ClassResolver.resolve("@unknown"));
+        Assertions.assertThrows(ClassNotFoundException.class, () -> ClassResolver.resolve("com.yupi.NotExists"));
+    }
+
+    @Test
+    void parameterTypesRoundTripWithEverySerializer() throws Exception {
+        RpcRequest rpcRequest = RpcRequest.builder()
+                .serviceName("com.yupi.yurpc.example.UserService")
+                .methodName("createUser")
+                .parameterTypes(new Class[]{String.class, Integer.class, int.class, UserInfo.class})
+                .args(new Object[]{"yupi", 18, 1, null})
+                .build();
+        for (Serializer serializer : new Serializer[]{new JdkSerializer(), new HessianSerializer(),
+                new JsonSerializer(), new ProtobufSerializer()}) {
+            RpcRequest result = serializer.deserialize(serializer.serialize(rpcRequest), RpcRequest.class);
+            Assertions.assertArrayEquals(rpcRequest.getParameterTypes(), result.getParameterTypes(),
+                    serializer.getClass().getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.yupi.yurpc.serializer;
+
+import com.yupi.yurpc.example.UserInfo;
+import com.yupi.yurpc.example.UserService;
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Json 序列化器测试
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class JsonSerializerTest {
+
+    private final JsonSerializer serializer = new JsonSerializer();
+
+    @Test
+    void requestArgsBoundToParameterTypes() throws Exception {
+        RpcRequest rpcRequest = RpcRequest.builder()
+                .serviceName("com.yupi.yurpc.example.UserService")
+                .methodName("updateUser")
+                .serviceVersion("1.0")
+                .parameterTypes(new Class[]{UserInfo.class, long.class, String.class})
+                .args(new Object[]{new UserInfo(9L, "yupi", 18, true), 8L, null})
+                .build();
+        RpcRequest decoded = serializer.deserialize(serializer.serialize(rpcRequest), RpcRequest.class);
+        Assertions.assertEquals(rpcRequest, decoded);
+    }
+
+    @Test
+    void compactRequestArgsBoundByMethodResolver() throws Exception {
+        Method method = UserService.class.getMethod("toggleUserActive", Long.class, boolean.class);
+        JsonSerializer resolvingSerializer = new JsonSerializer(methodId -> methodId == 42 ? method : null);
+        RpcRequest rpcRequest = RpcRequest.builder()
+                .methodId(42)
+                .args(new Object[]{9L, true})
+                .build();
+        RpcRequest decoded = resolvingSerializer.deserialize(resolvingSerializer.serialize(rpcRequest), RpcRequest.class);
+        Assertions.assertArrayEquals(rpcRequest.getArgs(), decoded.getArgs());
+    }
+
+    @Test
+    void genericResponseData() throws Exception {
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setData(List.of(new UserInfo(1L, "a", 1, true), new UserInfo(2L, "b", 2, false)));
+        rpcResponse.setDataType(List.class);
+        rpcResponse.setDataGenericType("java.util.List<com.yupi.yurpc.example.UserInfo>");
+        RpcResponse decoded = serializer.deserialize(serializer.serialize(rpcResponse), RpcResponse.class);
+        Assertions.assertEquals(rpcResponse.getData(), decoded.getData());
+        Assertions.assertInstanceOf(UserInfo.class, ((List<?>) decoded.getData()).get(0));
+    }
+
+    @Test
+    void malformedGenericTypeIsRejected() {
+        String responseJson = "{\"dataGenericType\":\"java.util.List<\",\"data\":[1]}";
+        Assertions.assertThrows(IOException.class,
+                () -> serializer.deserialize(responseJson.getBytes(StandardCharsets.UTF_8), RpcResponse.class));
+    }
+
+    @Test
+    void fieldsInAnyOrder() throws Exception {
+        String requestJson = "{\"args\":[{\"userId\":3,\"name\":\"c\"},5],"
+                + "\"parameterTypes\":[\"com.yupi.yurpc.example.UserInfo\",\"int\"],\"methodName\":\"m\"}";
+        RpcRequest request = serializer.deserialize(requestJson.getBytes(StandardCharsets.UTF_8), RpcRequest.class);
+        Assertions.assertInstanceOf(UserInfo.class, request.getArgs()[0]);
+        Assertions.assertEquals(5, request.getArgs()[1]);
+
+        String responseJson = "{\"data\":{\"userId\":3,\"name\":\"c\"},\"unknown\":{\"a\":[1]},"
+                + "\"dataType\":\"com.yupi.yurpc.example.UserInfo\"}";
+        RpcResponse response = serializer.deserialize(responseJson.getBytes(StandardCharsets.UTF_8), RpcResponse.class);
+        Assertions.assertEquals("c", ((UserInfo) response.getData()).getName());
+    }
+}
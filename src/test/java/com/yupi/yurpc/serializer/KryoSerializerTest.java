@@ -0,0 +1,64 @@
+package com.yupi.yurpc.serializer;
+
+import com.yupi.yurpc.example.UserInfo;
+import com.yupi.yurpc.model.RpcRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Kryo 序列化器测试
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class KryoSerializerTest {
+
+    private final KryoSerializer serializer = new KryoSerializer();
+
+    @Test
+    void registeredClassesWriteIdInsteadOfClassName() throws Exception {
+        RpcRequest rpcRequest = buildRequest(1L);
+        byte[] bytes = serializer.serialize(rpcRequest);
+        String content = new String(bytes, StandardCharsets.ISO_8859_1);
+        // 参数类型和参数中的业务类均已注册，不写完整类名
+        Assertions.assertFalse(content.contains(UserInfo.class.getName()));
+        Assertions.assertFalse(content.contains("java.util.ArrayList"));
+        Assertions.assertEquals(rpcRequest, serializer.deserialize(bytes, RpcRequest.class));
+    }
+
+    @Test
+    void concurrentOnVirtualThreads() throws Exception {
+        try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<RpcRequest>> futures = new ArrayList<>();
+            for (long i = 0; i < 1000; i++) {
+                long userId = i;
+                futures.add(executorService.submit(() ->
+                        serializer.deserialize(serializer.serialize(buildRequest(userId)), RpcRequest.class)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                UserInfo userInfo = (UserInfo) futures.get(i).get().getArgs()[0];
+                Assertions.assertEquals(i, userInfo.getUserId());
+            }
+        }
+    }
+
+    private static RpcRequest buildRequest(long userId) {
+        List<String> tags = new ArrayList<>();
+        tags.add("tag");
+        return RpcRequest.builder()
+                .serviceName("com.yupi.yurpc.example.UserService")
+                .methodName("getUser")
+                .serviceVersion("1.0")
+                .parameterTypes(new Class[]{UserInfo.class, List.class})
+                .args(new Object[]{new UserInfo(userId, "yupi", 18, true), tags})
+                .build();
+    }
+}
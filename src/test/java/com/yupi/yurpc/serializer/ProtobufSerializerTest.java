@@ -0,0 +1,60 @@
+package com.yupi.yurpc.serializer;
+
+import com.yupi.yurpc.example.UserInfo;
+import com.yupi.yurpc.grpc.proto.UserNameResponse;
+import com.yupi.yurpc.grpc.proto.UserRequest;
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Protobuf 序列化器测试
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class ProtobufSerializerTest {
+
+    private final ProtobufSerializer serializer = new ProtobufSerializer();
+
+    @Test
+    void requestWithMessageScalarAndFallbackArgs() throws Exception {
+        RpcRequest rpcRequest = RpcRequest.builder()
+                .serviceName("com.yupi.yurpc.example.UserService")
+                .methodName("getUser")
+                .serviceVersion("1.0")
+                .parameterTypes(new Class[]{UserRequest.class, long.class, UserInfo.class, String.class})
+                .args(new Object[]{UserRequest.newBuilder().setUserId(7L).build(), 8L, new UserInfo(9L, "yupi", 18, true), null})
+                .build();
+        RpcRequest decoded = serializer.deserialize(serializer.serialize(rpcRequest), RpcRequest.class);
+        Assertions.assertEquals(rpcRequest, decoded);
+    }
+
+    @Test
+    void compactRequestKeepsNullStrings() throws Exception {
+        RpcRequest rpcRequest = RpcRequest.builder().methodId(42).args(new Object[]{1}).build();
+        RpcRequest decoded = serializer.deserialize(serializer.serialize(rpcRequest), RpcRequest.class);
+        Assertions.assertNull(decoded.getServiceName());
+        Assertions.assertNull(decoded.getParameterTypes());
+        Assertions.assertEquals(42, decoded.getMethodId());
+        Assertions.assertArrayEquals(new Object[]{1}, decoded.getArgs());
+    }
+
+    @Test
+    void responseWithMessageDataAndException() throws Exception {
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setData(UserNameResponse.newBuilder().setUserName("yupi").build());
+        rpcResponse.setDataType(UserNameResponse.class);
+        rpcResponse.setMessage("ok");
+        RpcResponse decoded = serializer.deserialize(serializer.serialize(rpcResponse), RpcResponse.class);
+        Assertions.assertEquals(rpcResponse, decoded);
+
+        RpcResponse errorResponse = new RpcResponse();
+        errorResponse.setException(new IllegalStateException("boom"));
+        Exception exception = serializer.deserialize(serializer.serialize(errorResponse), RpcResponse.class).getException();
+        Assertions.assertInstanceOf(IllegalStateException.class, exception);
+        Assertions.assertEquals("boom", exception.getMessage());
+    }
+}
@@ -0,0 +1,59 @@
+package com.yupi.yurpc.serializer;
+
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.model.ServiceMetaInfo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * 序列化器协商测试
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class SerializerNegotiatorTest {
+
+    private static final String SERVICE = "com.yupi.yurpc.example.UserService";
+
+    @Test
+    void selectFirstCommonSerializerInConsumerOrder() {
+        RpcConfig rpcConfig = new RpcConfig();
+        rpcConfig.setSerializer(SerializerKeys.JSON);
+        rpcConfig.setSerializers("kryo, protobuf, hessian");
+        Assertions.assertEquals(List.of("kryo", "protobuf", "hessian", "json"),
+                SerializerNegotiator.getSupportedSerializers(rpcConfig));
+
+        Assertions.assertEquals(SerializerKeys.PROTOBUF,
+                SerializerNegotiator.select(rpcConfig, SERVICE, "listUsers", provider("json", "hessian", "protobuf")));
+        // 没有共同的序列化器、提供者未发布时使用全局序列化器
+        Assertions.assertEquals(SerializerKeys.JSON,
+                SerializerNegotiator.select(rpcConfig, SERVICE, "listUsers", provider("jdk")));
+        Assertions.assertEquals(SerializerKeys.JSON,
+                SerializerNegotiator.select(rpcConfig, SERVICE, "listUsers", new ServiceMetaInfo()));
+    }
+
+    @Test
+    void methodOverrideBeforeServiceOverride() {
+        RpcConfig rpcConfig = new RpcConfig();
+        rpcConfig.setSerializers("kryo");
+        rpcConfig.setSerializerOverrides(SERVICE + "=hessian," + SERVICE + "#getUserName=json");
+        ServiceMetaInfo provider = provider("kryo", "hessian", "json");
+        Assertions.assertEquals(SerializerKeys.JSON, SerializerNegotiator.select(rpcConfig, SERVICE, "getUserName", provider));
+        Assertions.assertEquals(SerializerKeys.HESSIAN, SerializerNegotiator.select(rpcConfig, SERVICE, "listUsers", provider));
+        Assertions.assertEquals(SerializerKeys.KRYO, SerializerNegotiator.select(rpcConfig, "other", "listUsers", provider));
+        // 提供者不支持覆盖的序列化器时继续协商
+        Assertions.assertEquals(SerializerKeys.KRYO, SerializerNegotiator.select(rpcConfig, SERVICE, "getUserName", provider("kryo")));
+    }
+
+    private static ServiceMetaInfo provider(String... serializers) {
+        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
+        serviceMetaInfo.setServiceName(SERVICE);
+        serviceMetaInfo.setServiceHost("localhost");
+        serviceMetaInfo.setServicePort(8080);
+        serviceMetaInfo.setSerializers(List.of(serializers));
+        return serviceMetaInfo;
+    }
+}
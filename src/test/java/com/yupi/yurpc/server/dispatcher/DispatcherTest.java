@@ -0,0 +1,73 @@
+package com.yupi.yurpc.server.dispatcher;
+
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.config.TcpConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求分发器测试
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class DispatcherTest {
+
+    @Test
+    void workerPoolRejectsWhenSaturated() throws Exception {
+        TcpConfig tcpConfig = RpcApplication.getRpcConfig().getTcp();
+        int workerThreads = tcpConfig.getWorkerThreads();
+        int workerQueueCapacity = tcpConfig.getWorkerQueueCapacity();
+        tcpConfig.setWorkerThreads(1);
+        tcpConfig.setWorkerQueueCapacity(1);
+        Dispatcher dispatcher;
+        try {
+            dispatcher = new WorkerPoolDispatcher();
+        } finally {
+            tcpConfig.setWorkerThreads(workerThreads);
+            tcpConfig.setWorkerQueueCapacity(workerQueueCapacity);
+        }
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+        Runnable blocking = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        };
+        // 1 个线程执行中 + 1 个排队，第 3 个请求被拒绝
+        dispatcher.dispatch(blocking);
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        dispatcher.dispatch(blocking);
+        Assertions.assertThrows(RejectedExecutionException.class, () -> dispatcher.dispatch(blocking));
+        release.countDown();
+        Assertions.assertTrue(finished.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void virtualThreadRunsEachRequestOnVirtualThread() throws Exception {
+        Dispatcher dispatcher = new VirtualThreadDispatcher();
+        CountDownLatch finished = new CountDownLatch(100);
+        boolean[] virtual = new boolean[]{true};
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatch(() -> {
+                if (!Thread.currentThread().isVirtual()) {
+                    virtual[0] = false;
+                }
+                finished.countDown();
+            });
+        }
+        Assertions.assertTrue(finished.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(virtual[0]);
+    }
+}
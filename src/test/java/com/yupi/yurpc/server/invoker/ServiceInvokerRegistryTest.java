@@ -0,0 +1,76 @@
+package com.yupi.yurpc.server.invoker;
+
+import com.yupi.yurpc.registry.LocalRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 服务调用器注册中心测试
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class ServiceInvokerRegistryTest {
+
+    interface GreetingService {
+
+        String greet(String name);
+
+        String greet(String name, int times);
+
+        int count();
+
+        void fail();
+    }
+
+    static class GreetingServiceImpl implements GreetingService {
+
+        private int invocations;
+
+        @Override
+        public String greet(String name) {
+            invocations++;
+            return "hello " + name;
+        }
+
+        @Override
+        public String greet(String name, int times) {
+            invocations++;
+            return ("hello " + name + " ").repeat(times).trim();
+        }
+
+        @Override
+        public int count() {
+            return invocations;
+        }
+
+        @Override
+        public void fail() {
+            throw new IllegalStateException("boom");
+        }
+    }
+
+    @Test
+    void invokeOverloadsOnSingletonInstance() throws Exception {
+        String serviceName = GreetingService.class.getName();
+        LocalRegistry.register(serviceName, GreetingServiceImpl.class);
+
+        ServiceInvoker single = ServiceInvokerRegistry.get(serviceName, "greet", new Class[]{String.class});
+        ServiceInvoker repeated = ServiceInvokerRegistry.get(serviceName, "greet", new Class[]{String.class, int.class});
+        Assertions.assertEquals("hello yupi", single.invoke(new Object[]{"yupi"}));
+        Assertions.assertEquals("hello yupi hello yupi", repeated.invoke(new Object[]{"yupi", 2}));
+        Assertions.assertSame(single, ServiceInvokerRegistry.get(single.getMethodId()));
+
+        // 所有调用共用同一个服务实例
+        ServiceInvoker count = ServiceInvokerRegistry.get(serviceName, "count", null);
+        Assertions.assertEquals(2, count.invoke(null));
+        Assertions.assertEquals(int.class, count.getReturnType());
+
+        // 服务方法抛出的异常原样透传
+        ServiceInvoker fail = ServiceInvokerRegistry.get(serviceName, "fail", new Class[0]);
+        Assertions.assertThrows(IllegalStateException.class, () -> fail.invoke(new Object[0]));
+        Assertions.assertThrows(RuntimeException.class,
+                () -> ServiceInvokerRegistry.get(serviceName, "greet", new Class[]{int.class}));
+    }
+}
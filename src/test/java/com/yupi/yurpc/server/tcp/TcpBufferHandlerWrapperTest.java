@@ -0,0 +1,92 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.protocol.*;
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP 半包、粘包处理测试
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class TcpBufferHandlerWrapperTest {
+
+    @Test
+    void splitStickyAndHalfPackets() throws Exception {
+        Buffer first = encode(1L, "first");
+        Buffer second = encode(2L, "second");
+        Buffer third = encode(3L, "third");
+
+        List<ProtocolMessage<?>> messages = new ArrayList<>();
+        TcpBufferHandlerWrapper wrapper = new TcpBufferHandlerWrapper(buffer -> {
+            try {
+                messages.add(ProtocolMessageDecoder.decode(buffer));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, 1024 * 1024, () -> Assertions.fail("unexpected invalid frame"));
+
+        // 粘包：前两帧一起到达，并带上第三帧的前 5 个字节（不足一个消息头）
+        Buffer sticky = Buffer.buffer()
+                .appendBuffer(first)
+                .appendBuffer(second)
+                .appendBuffer(third, 0, 5);
+        wrapper.handle(sticky);
+        Assertions.assertEquals(2, messages.size());
+
+        // 半包：第三帧剩余部分分两次到达
+        int middle = third.length() / 2;
+        wrapper.handle(third.getBuffer(5, middle));
+        Assertions.assertEquals(2, messages.size());
+        wrapper.handle(third.getBuffer(middle, third.length()));
+        Assertions.assertEquals(3, messages.size());
+
+        for (int i = 0; i < messages.size(); i++) {
+            Assertions.assertEquals(i + 1L, messages.get(i).getHeader().getRequestId());
+        }
+        Assertions.assertEquals("third", ((RpcRequest) messages.get(2).getBody()).getMethodName());
+    }
+
+    @Test
+    void rejectMalformedBodyLength() throws Exception {
+        for (int bodyLength : new int[]{-1, Integer.MAX_VALUE, 1024 + 1}) {
+            List<Buffer> frames = new ArrayList<>();
+            AtomicInteger invalidCount = new AtomicInteger();
+            TcpBufferHandlerWrapper wrapper = new TcpBufferHandlerWrapper(frames::add, 1024, invalidCount::incrementAndGet);
+            // 先到一个正常帧，再到一个 body 长度非法的消息头
+            Buffer malformed = encode(2L, "malformed");
+            malformed.setInt(13, bodyLength);
+            wrapper.handle(Buffer.buffer().appendBuffer(encode(1L, "valid")).appendBuffer(malformed));
+            Assertions.assertEquals(1, frames.size());
+            Assertions.assertEquals(1, invalidCount.get());
+
+            // 非法帧之后的数据全部丢弃
+            wrapper.handle(encode(3L, "after"));
+            Assertions.assertEquals(1, frames.size());
+            Assertions.assertEquals(1, invalidCount.get());
+        }
+    }
+
+    private static Buffer encode(long requestId, String methodName) throws Exception {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.JDK.getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
+        header.setRequestId(requestId);
+        RpcRequest rpcRequest = new RpcRequest();
+        rpcRequest.setServiceName("myService");
+        rpcRequest.setMethodName(methodName);
+        rpcRequest.setParameterTypes(new Class[]{String.class});
+        rpcRequest.setArgs(new Object[]{"aaa"});
+        return ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, rpcRequest));
+    }
+}
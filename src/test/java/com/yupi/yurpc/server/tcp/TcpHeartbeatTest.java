@@ -0,0 +1,137 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.config.TcpConfig;
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.protocol.*;
+import com.yupi.yurpc.server.dispatcher.EventLoopDispatcher;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetServerOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TCP 心跳与空闲连接管理测试
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class TcpHeartbeatTest {
+
+    private static final int IDLE_TIMEOUT = 300;
+
+    private Vertx vertx;
+
+    private NetClient netClient;
+
+    private TcpConfig tcpConfig;
+
+    @BeforeEach
+    void setUp() {
+        vertx = Vertx.vertx();
+        tcpConfig = new TcpConfig();
+        tcpConfig.setHeartbeatInterval(100);
+        tcpConfig.setIdleTimeout(IDLE_TIMEOUT);
+        netClient = vertx.createNetClient(new NetClientOptions()
+                .setReadIdleTimeout(IDLE_TIMEOUT)
+                .setIdleTimeoutUnit(TimeUnit.MILLISECONDS));
+    }
+
+    @AfterEach
+    void tearDown() {
+        vertx.close();
+    }
+
+    @Test
+    void heartbeatKeepsIdleConnectionAlive() throws Exception {
+        NetServer server = vertx.createNetServer(new NetServerOptions()
+                        .setReadIdleTimeout(IDLE_TIMEOUT)
+                        .setIdleTimeoutUnit(TimeUnit.MILLISECONDS))
+                .connectHandler(new TcpServerHandler(new EventLoopDispatcher()));
+        int port = server.listen(0).toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS).actualPort();
+
+        TcpConnectionPool pool = new TcpConnectionPool(netClient, "localhost", port, tcpConfig);
+        TcpClientConnection connection = pool.acquire().get(5, TimeUnit.SECONDS);
+        // 空闲时间远超读空闲超时，心跳使两端的连接都保持可用
+        Thread.sleep(IDLE_TIMEOUT * 4L);
+        Assertions.assertTrue(connection.isActive());
+        Assertions.assertSame(connection, pool.acquire().get(5, TimeUnit.SECONDS));
+        pool.close();
+    }
+
+    @Test
+    void evictHalfOpenConnectionAndReconnect() throws Exception {
+        // 只建连、从不回应的服务端，模拟被 NAT / 负载均衡静默丢弃的连接
+        List<Socket> accepted = new ArrayList<>();
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            Thread acceptThread = new Thread(() -> {
+                try {
+                    while (true) {
+                        Socket socket = serverSocket.accept();
+                        synchronized (accepted) {
+                            accepted.add(socket);
+                        }
+                    }
+                } catch (Exception ignored) {
+                    // 关闭服务端
+                }
+            });
+            acceptThread.setDaemon(true);
+            acceptThread.start();
+
+            TcpConnectionPool pool = new TcpConnectionPool(netClient, "localhost", serverSocket.getLocalPort(), tcpConfig);
+            TcpClientConnection connection = pool.acquire().get(5, TimeUnit.SECONDS);
+            long start = System.currentTimeMillis();
+            CompletableFuture<RpcResponse> responseFuture = connection.send(buildRequest(), 10_000L);
+            // 请求在读空闲超时后快速失败，而不是等满请求超时
+            ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+                    () -> responseFuture.get(5, TimeUnit.SECONDS));
+            Assertions.assertTrue(exception.getCause().getMessage().contains("连接已关闭"));
+            Assertions.assertTrue(System.currentTimeMillis() - start < 5_000L);
+            Assertions.assertFalse(connection.isActive());
+
+            // 连接被驱逐后立即在后台重连
+            long deadline = System.currentTimeMillis() + 5_000L;
+            while (accepted.size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Assertions.assertTrue(accepted.size() >= 2);
+            pool.close();
+        } finally {
+            synchronized (accepted) {
+                for (Socket socket : accepted) {
+                    socket.close();
+                }
+            }
+        }
+    }
+
+    private static ProtocolMessage<RpcRequest> buildRequest() {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.JDK.getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
+        header.setRequestId(1L);
+        RpcRequest rpcRequest = new RpcRequest();
+        rpcRequest.setServiceName("myService");
+        rpcRequest.setMethodName("myMethod");
+        rpcRequest.setParameterTypes(new Class[0]);
+        rpcRequest.setArgs(new Object[0]);
+        return new ProtocolMessage<>(header, rpcRequest);
+    }
+}
@@ -0,0 +1,185 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.ServiceMetaInfo;
+import com.yupi.yurpc.server.invoker.ServiceInvokerRegistry;
+import com.yupi.yurpc.utils.IteratorPublisher;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP 流式响应测试（本机回环）
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class TcpStreamTest {
+
+    private static ServiceMetaInfo serviceMetaInfo;
+
+    /**
+     * 服务端已生产的元素数
+     */
+    private static final AtomicInteger PRODUCED = new AtomicInteger();
+
+    public interface NumberService {
+
+        Flow.Publisher<Integer> range(int count);
+    }
+
+    public static class NumberServiceImpl implements NumberService {
+
+        @Override
+        public Flow.Publisher<Integer> range(int count) {
+            return new IteratorPublisher<>(() -> new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < count;
+                }
+
+                @Override
+                public Integer next() {
+                    PRODUCED.incrementAndGet();
+                    return next++;
+                }
+            });
+        }
+    }
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+        ServiceInvokerRegistry.register(NumberService.class.getName(), NumberServiceImpl.class);
+        new VertxTcpServer().doStart(port);
+        waitForPort(port);
+
+        serviceMetaInfo = new ServiceMetaInfo();
+        serviceMetaInfo.setServiceName(NumberService.class.getName());
+        serviceMetaInfo.setServiceHost("localhost");
+        serviceMetaInfo.setServicePort(port);
+    }
+
+    @AfterAll
+    static void destroy() {
+        VertxTcpClient.destroy();
+    }
+
+    @Test
+    void elementsFollowDemand() throws Exception {
+        PRODUCED.set(0);
+        RecordingSubscriber subscriber = new RecordingSubscriber(3);
+        VertxTcpClient.doStreamRequest(buildRequest(10), serviceMetaInfo).subscribe(subscriber);
+        Assertions.assertTrue(subscriber.awaitElements(3));
+        // 未请求的元素不会被生产
+        Thread.sleep(200L);
+        Assertions.assertEquals(3, PRODUCED.get());
+        Assertions.assertEquals(3, subscriber.elements.size());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        Assertions.assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), subscriber.elements);
+        Assertions.assertNull(subscriber.error);
+    }
+
+    @Test
+    void cancelStopsProduction() throws Exception {
+        PRODUCED.set(0);
+        RecordingSubscriber subscriber = new RecordingSubscriber(2);
+        VertxTcpClient.doStreamRequest(buildRequest(1000), serviceMetaInfo).subscribe(subscriber);
+        Assertions.assertTrue(subscriber.awaitElements(2));
+        subscriber.subscription.cancel();
+        Thread.sleep(200L);
+        Assertions.assertEquals(2, PRODUCED.get());
+        Assertions.assertEquals(2, subscriber.elements.size());
+        Assertions.assertEquals(1, subscriber.completed.getCount());
+    }
+
+    private static RpcRequest buildRequest(int count) {
+        return RpcRequest.builder()
+                .serviceName(NumberService.class.getName())
+                .methodName("range")
+                .parameterTypes(new Class[]{int.class})
+                .args(new Object[]{count})
+                .build();
+    }
+
+    private static void waitForPort(int port) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            try (Socket ignored = new Socket("localhost", port)) {
+                return;
+            } catch (IOException e) {
+                Thread.sleep(100L);
+            }
+        }
+        Assertions.fail("tcp server not started on port " + port);
+    }
+
+    /**
+     * 订阅时只请求指定数量的元素
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<Object> {
+
+        private final long initialDemand;
+
+        private final List<Object> elements = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private volatile Flow.Subscription subscription;
+
+        private volatile Throwable error;
+
+        private RecordingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialDemand);
+        }
+
+        @Override
+        public void onNext(Object item) {
+            elements.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        private boolean awaitElements(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (elements.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            return elements.size() >= count;
+        }
+    }
+}
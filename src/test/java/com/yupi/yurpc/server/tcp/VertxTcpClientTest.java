@@ -0,0 +1,133 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.config.TcpConfig;
+import com.yupi.yurpc.example.CalcService;
+import com.yupi.yurpc.example.CalcServiceImpl;
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.model.ServiceMetaInfo;
+import com.yupi.yurpc.registry.LocalRegistry;
+import com.yupi.yurpc.server.invoker.ServiceInvokerRegistry;
+import com.yupi.yurpc.utils.MethodIdUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * TCP 客户端连接池测试（本机回环）
+ *
+ * @author <a href="https://github.com/liyupi">程序员鱼皮</a>
+ * @learn <a href="https://codefather.cn">编程宝典</a>
+ * @from <a href="https://yupi.icu">编程导航知识星球</a>
+ */
+class VertxTcpClientTest {
+
+    private static ServiceMetaInfo serviceMetaInfo;
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+        LocalRegistry.register(CalcService.class.getName(), CalcServiceImpl.class);
+        new VertxTcpServer().doStart(port);
+        waitForPort(port);
+
+        serviceMetaInfo = new ServiceMetaInfo();
+        serviceMetaInfo.setServiceName(CalcService.class.getName());
+        serviceMetaInfo.setServiceHost("localhost");
+        serviceMetaInfo.setServicePort(port);
+    }
+
+    @AfterAll
+    static void destroy() {
+        VertxTcpClient.destroy();
+    }
+
+    @Test
+    void concurrentRequestsShareConnection() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<RpcResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                double left = i;
+                futures.add(executorService.submit(() -> VertxTcpClient.doRequest(buildRequest(left, 1), serviceMetaInfo)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                RpcResponse rpcResponse = futures.get(i).get();
+                Assertions.assertEquals(i + 1.0, rpcResponse.getData());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void compactRequestWithMethodIdAndFallback() throws Exception {
+        String serviceName = CalcService.class.getName();
+        ServiceInvokerRegistry.register(serviceName, CalcServiceImpl.class);
+        int methodId = MethodIdUtils.getMethodId(
+                CalcService.class.getMethod("compute", double.class, double.class, String.class));
+        ServiceMetaInfo publishedMetaInfo = new ServiceMetaInfo();
+        publishedMetaInfo.setServiceName(serviceName);
+        publishedMetaInfo.setServiceHost(serviceMetaInfo.getServiceHost());
+        publishedMetaInfo.setServicePort(serviceMetaInfo.getServicePort());
+        publishedMetaInfo.setMethodIds(ServiceInvokerRegistry.getMethodIds(serviceName));
+        Assertions.assertTrue(publishedMetaInfo.supportsMethodId(methodId));
+
+        // 只携带方法 id
+        RpcRequest rpcRequest = buildRequest(1, 2);
+        rpcRequest.setMethodId(methodId);
+        Assertions.assertEquals(3.0, VertxTcpClient.doRequest(rpcRequest, publishedMetaInfo).getData());
+
+        // 注册信息过期，提供者无法识别方法 id 时改为发送完整请求
+        rpcRequest.setMethodId(12345);
+        publishedMetaInfo.setMethodIds(List.of(12345));
+        Assertions.assertEquals(3.0, VertxTcpClient.doRequest(rpcRequest, publishedMetaInfo).getData());
+    }
+
+    @Test
+    void idlePoolIsEvictedAndClosedPoolRejectsAcquire() throws Exception {
+        Assertions.assertEquals(2.0, VertxTcpClient.doRequest(buildRequest(1, 1), serviceMetaInfo).getData());
+        TcpConnectionPool connectionPool = new TcpConnectionPool(null, "localhost", serviceMetaInfo.getServicePort(), new TcpConfig());
+        Assertions.assertFalse(connectionPool.isIdle(System.currentTimeMillis(), 60000L));
+        Assertions.assertTrue(connectionPool.isIdle(System.currentTimeMillis() + 60000L, 60000L));
+        connectionPool.close();
+        Assertions.assertTrue(connectionPool.acquire().isCompletedExceptionally());
+
+        // 驱逐所有连接池后，下次请求重新创建连接池
+        VertxTcpClient.evictIdlePools(0);
+        Assertions.assertEquals(3.0, VertxTcpClient.doRequest(buildRequest(1, 2), serviceMetaInfo).getData());
+    }
+
+    private static RpcRequest buildRequest(double left, double right) {
+        return RpcRequest.builder()
+                .serviceName(CalcService.class.getName())
+                .methodName("compute")
+                .parameterTypes(new Class[]{double.class, double.class, String.class})
+                .args(new Object[]{left, right, "add"})
+                .build();
+    }
+
+    private static void waitForPort(int port) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            try (Socket ignored = new Socket("localhost", port)) {
+                return;
+            } catch (IOException e) {
+                Thread.sleep(100L);
+            }
+        }
+        Assertions.fail("tcp server not started on port " + port);
+    }
+}